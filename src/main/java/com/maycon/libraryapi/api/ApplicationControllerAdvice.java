@@ -2,6 +2,7 @@ package com.maycon.libraryapi.api;
 
 import com.maycon.libraryapi.api.exceptions.ApiErrors;
 import com.maycon.libraryapi.exception.BusinessException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -28,6 +29,11 @@ public class ApplicationControllerAdvice {
         return new ApiErrors(ex);
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    public ApiErrors handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        return new ApiErrors("Resource was modified by another request.");
+    }
 
     @ExceptionHandler(ResponseStatusException.class)
     public ResponseEntity handleResponseStatusException(ResponseStatusException ex) {
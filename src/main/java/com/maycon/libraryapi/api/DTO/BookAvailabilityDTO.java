@@ -0,0 +1,21 @@
+package com.maycon.libraryapi.api.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookAvailabilityDTO {
+
+    private Long bookId;
+    private String isbn;
+    private boolean available;
+    private long totalLoans;
+    private LocalDate lastLoanDate;
+}
@@ -0,0 +1,18 @@
+package com.maycon.libraryapi.api.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportRejectionDTO {
+
+    private long row;
+    private String isbn;
+    private String reason;
+
+}
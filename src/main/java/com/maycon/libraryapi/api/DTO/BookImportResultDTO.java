@@ -0,0 +1,22 @@
+package com.maycon.libraryapi.api.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportResultDTO {
+
+    private long accepted;
+    private long rejected;
+    @Builder.Default
+    private List<BookImportRejectionDTO> rejections = new ArrayList<>();
+
+}
@@ -0,0 +1,20 @@
+package com.maycon.libraryapi.api.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookLookupDTO {
+
+    private BookDTO book;
+    private boolean available;
+    private long totalLoans;
+    private LocalDate lastLoanDate;
+}
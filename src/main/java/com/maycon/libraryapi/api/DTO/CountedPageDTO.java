@@ -0,0 +1,23 @@
+package com.maycon.libraryapi.api.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CountedPageDTO<T> {
+
+    private List<T> content;
+    private int page;
+    private int size;
+    private boolean hasNext;
+    private Long totalElements;
+    private boolean totalExact;
+
+}
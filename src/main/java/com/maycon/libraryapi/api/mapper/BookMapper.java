@@ -0,0 +1,78 @@
+package com.maycon.libraryapi.api.mapper;
+
+import com.maycon.libraryapi.api.DTO.BookAvailabilityDTO;
+import com.maycon.libraryapi.api.DTO.BookDTO;
+import com.maycon.libraryapi.api.DTO.BookLookupDTO;
+import com.maycon.libraryapi.api.model.entity.Book;
+import com.maycon.libraryapi.api.model.projection.BookAvailability;
+import com.maycon.libraryapi.api.model.projection.BookLookup;
+import com.maycon.libraryapi.api.model.projection.BookView;
+
+public class BookMapper {
+
+    public BookDTO toDTO(Book book) {
+        if (book == null) {
+            return null;
+        }
+        return BookDTO.builder()
+                .id(book.getId())
+                .title(book.getTitle())
+                .author(book.getAuthor())
+                .isbn(book.getIsbn())
+                .build();
+    }
+
+    public BookDTO toDTO(BookView book) {
+        if (book == null) {
+            return null;
+        }
+        return BookDTO.builder()
+                .id(book.getId())
+                .title(book.getTitle())
+                .author(book.getAuthor())
+                .isbn(book.getIsbn())
+                .build();
+    }
+
+    public BookAvailabilityDTO toDTO(BookAvailability availability) {
+        if (availability == null) {
+            return null;
+        }
+        return BookAvailabilityDTO.builder()
+                .bookId(availability.getBookId())
+                .isbn(availability.getIsbn())
+                .available(!Boolean.TRUE.equals(availability.getOpenLoan()))
+                .totalLoans(availability.getTotalLoans() == null ? 0 : availability.getTotalLoans())
+                .lastLoanDate(availability.getLastLoanDate())
+                .build();
+    }
+
+    public BookLookupDTO toDTO(BookLookup lookup) {
+        if (lookup == null) {
+            return null;
+        }
+        return BookLookupDTO.builder()
+                .book(BookDTO.builder()
+                        .id(lookup.getId())
+                        .title(lookup.getTitle())
+                        .author(lookup.getAuthor())
+                        .isbn(lookup.getIsbn())
+                        .build())
+                .available(!Boolean.TRUE.equals(lookup.getOpenLoan()))
+                .totalLoans(lookup.getTotalLoans() == null ? 0 : lookup.getTotalLoans())
+                .lastLoanDate(lookup.getLastLoanDate())
+                .build();
+    }
+
+    public Book toEntity(BookDTO dto) {
+        if (dto == null) {
+            return null;
+        }
+        return Book.builder()
+                .id(dto.getId())
+                .title(dto.getTitle())
+                .author(dto.getAuthor())
+                .isbn(dto.getIsbn())
+                .build();
+    }
+}
@@ -0,0 +1,57 @@
+package com.maycon.libraryapi.api.mapper;
+
+import com.maycon.libraryapi.api.DTO.BookDTO;
+import com.maycon.libraryapi.api.DTO.LoanDTO;
+import com.maycon.libraryapi.api.model.entity.Book;
+import com.maycon.libraryapi.api.model.entity.Loan;
+import com.maycon.libraryapi.api.model.projection.LoanView;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class LoanMapper {
+
+    private final BookMapper bookMapper;
+
+    public LoanDTO toDTO(Loan loan) {
+        if (loan == null) {
+            return null;
+        }
+        Book book = loan.getBook();
+        return LoanDTO.builder()
+                .id(loan.getId())
+                .customer(loan.getCustomer())
+                .email(loan.getCustomerEmail())
+                .isbn(book == null ? null : book.getIsbn())
+                .book(bookMapper.toDTO(book))
+                .build();
+    }
+
+    public LoanDTO toDTO(LoanView loan) {
+        if (loan == null) {
+            return null;
+        }
+        return LoanDTO.builder()
+                .id(loan.getId())
+                .customer(loan.getCustomer())
+                .email(loan.getCustomerEmail())
+                .isbn(loan.getBookIsbn())
+                .book(BookDTO.builder()
+                        .id(loan.getBookId())
+                        .title(loan.getBookTitle())
+                        .author(loan.getBookAuthor())
+                        .isbn(loan.getBookIsbn())
+                        .build())
+                .build();
+    }
+
+    public Loan toEntity(LoanDTO dto, Book book) {
+        if (dto == null) {
+            return null;
+        }
+        return Loan.builder()
+                .customer(dto.getCustomer())
+                .customerEmail(dto.getEmail())
+                .book(book)
+                .build();
+    }
+}
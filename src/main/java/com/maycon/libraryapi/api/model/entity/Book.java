@@ -3,9 +3,12 @@ package com.maycon.libraryapi.api.model.entity;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import javax.persistence.*;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
@@ -27,7 +30,15 @@ public class Book {
     private String author;
     @Column
     private String isbn;
-    @OneToMany(mappedBy = "book")
+    @Version
+    @Column
+    private Long version;
+    @EqualsAndHashCode.Exclude
+    @Column(name = "updated_at", insertable = false, updatable = false)
+    private LocalDateTime updatedAt;
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @OneToMany(mappedBy = "book", fetch = FetchType.LAZY)
     private List<Loan> loans;
 
 }
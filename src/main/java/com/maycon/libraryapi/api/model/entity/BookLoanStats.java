@@ -0,0 +1,37 @@
+package com.maycon.libraryapi.api.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDate;
+
+/**
+ * Loan totals of a book, kept up to date by the loan service so availability is a primary key read.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "book_loan_stats")
+public class BookLoanStats {
+
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Column(name = "open_loan")
+    private boolean openLoan;
+
+    @Column(name = "total_loans")
+    private long totalLoans;
+
+    @Column(name = "last_loan_date")
+    private LocalDate lastLoanDate;
+}
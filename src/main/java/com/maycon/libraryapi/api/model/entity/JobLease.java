@@ -0,0 +1,34 @@
+package com.maycon.libraryapi.api.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * Which node may run a scheduled job (or one shard of it) and until when.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "job_lease")
+public class JobLease {
+
+    @Id
+    @Column(length = 255)
+    private String name;
+
+    @Column(length = 128)
+    private String owner;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,31 @@
+package com.maycon.libraryapi.api.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDate;
+
+/**
+ * How far an incremental job has got, so the next run starts where the last one finished.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "job_watermark")
+public class JobWatermark {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(nullable = false)
+    private LocalDate watermark;
+}
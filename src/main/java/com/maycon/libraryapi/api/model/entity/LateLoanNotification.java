@@ -0,0 +1,40 @@
+package com.maycon.libraryapi.api.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+public class LateLoanNotification {
+
+    @Id
+    @Column
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "idempotency_key", length = 40, unique = true, nullable = false)
+    private String idempotencyKey;
+
+    @Column(name = "id_loan", nullable = false)
+    private Long loanId;
+
+    @Column(name = "customer_email")
+    private String customerEmail;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column
+    private LocalDateTime sentAt;
+
+    @Column(nullable = false)
+    private int attempts;
+}
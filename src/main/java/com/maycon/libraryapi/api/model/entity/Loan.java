@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 
 import javax.persistence.*;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Data
 @AllArgsConstructor
@@ -27,7 +28,7 @@ public class Loan {
     private String customerEmail;
 
     @JoinColumn(name = "id_book")
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Book book;
 
     @Column
@@ -35,4 +36,13 @@ public class Loan {
 
     @Column
     private Boolean returned;
+
+    /**
+     * First day the loan counts as overdue, fixed when the loan is made.
+     */
+    @Column
+    private LocalDate dueDate;
+
+    @Column
+    private LocalDateTime overdueNotifiedAt;
 }
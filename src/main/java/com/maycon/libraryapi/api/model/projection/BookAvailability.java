@@ -0,0 +1,16 @@
+package com.maycon.libraryapi.api.model.projection;
+
+import java.time.LocalDate;
+
+public interface BookAvailability {
+
+    Long getBookId();
+
+    String getIsbn();
+
+    Boolean getOpenLoan();
+
+    Long getTotalLoans();
+
+    LocalDate getLastLoanDate();
+}
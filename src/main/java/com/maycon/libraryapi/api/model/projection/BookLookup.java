@@ -0,0 +1,20 @@
+package com.maycon.libraryapi.api.model.projection;
+
+import java.time.LocalDate;
+
+public interface BookLookup {
+
+    Long getId();
+
+    String getTitle();
+
+    String getAuthor();
+
+    String getIsbn();
+
+    Boolean getOpenLoan();
+
+    Long getTotalLoans();
+
+    LocalDate getLastLoanDate();
+}
@@ -0,0 +1,12 @@
+package com.maycon.libraryapi.api.model.projection;
+
+public interface BookView {
+
+    Long getId();
+
+    String getTitle();
+
+    String getAuthor();
+
+    String getIsbn();
+}
@@ -0,0 +1,8 @@
+package com.maycon.libraryapi.api.model.projection;
+
+public interface LateLoan {
+
+    Long getId();
+
+    String getCustomerEmail();
+}
@@ -0,0 +1,18 @@
+package com.maycon.libraryapi.api.model.projection;
+
+public interface LoanView {
+
+    Long getId();
+
+    String getCustomer();
+
+    String getCustomerEmail();
+
+    Long getBookId();
+
+    String getBookTitle();
+
+    String getBookAuthor();
+
+    String getBookIsbn();
+}
@@ -0,0 +1,67 @@
+package com.maycon.libraryapi.api.model.repository;
+
+import com.maycon.libraryapi.api.model.entity.BookLoanStats;
+import com.maycon.libraryapi.api.model.projection.BookAvailability;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+public interface BookLoanStatsRepository extends JpaRepository<BookLoanStats, Long> {
+
+    @Modifying
+    @Query(value = "update book_loan_stats set open_loan = true, total_loans = total_loans + 1, " +
+            "last_loan_date = case when last_loan_date is null or last_loan_date < :loanDate " +
+            "then :loanDate else last_loan_date end " +
+            "where book_id = :bookId", nativeQuery = true)
+    int recordLoan(@Param("bookId") Long bookId, @Param("loanDate") LocalDate loanDate);
+
+    /**
+     * Reads the flag back from the loans of the book, through the unique index on open_book_id, rather than
+     * from the loan that was just changed: returning a loan that was already returned must not free a book
+     * that another loan still holds.
+     */
+    @Modifying
+    @Query(value = "update book_loan_stats set open_loan = " +
+            "exists (select 1 from loan where open_book_id = book_loan_stats.book_id) " +
+            "where book_id = :bookId", nativeQuery = true)
+    int recordOpen(@Param("bookId") Long bookId);
+
+    @Modifying
+    @Query(value = "update book_loan_stats set open_loan = " +
+            "exists (select 1 from loan where open_book_id = book_loan_stats.book_id) " +
+            "where book_id = (select id_book from loan where id = :loanId)", nativeQuery = true)
+    int recordOpenByLoan(@Param("loanId") Long loanId);
+
+    /**
+     * Serializes the creation of a missing stats row: whoever waits here finds the row once the first writer
+     * commits, instead of racing it on the primary key.
+     */
+    @Query(value = "select id from book where id = :bookId for update", nativeQuery = true)
+    Long lockBook(@Param("bookId") Long bookId);
+
+    @Query(value = "select id from book where id = (select id_book from loan where id = :loanId) for update",
+            nativeQuery = true)
+    Long lockBookOfLoan(@Param("loanId") Long loanId);
+
+    @Modifying
+    @Query(value = "insert into book_loan_stats (book_id, open_loan, total_loans, last_loan_date) " +
+            "select id_book, max(case when returned then 0 else 1 end) = 1, count(*), max(loan_date) " +
+            "from loan where id_book = :bookId group by id_book", nativeQuery = true)
+    int rebuild(@Param("bookId") Long bookId);
+
+    @Modifying
+    @Query(value = "insert into book_loan_stats (book_id, open_loan, total_loans, last_loan_date) " +
+            "select id_book, max(case when returned then 0 else 1 end) = 1, count(*), max(loan_date) " +
+            "from loan where id_book = (select id_book from loan where id = :loanId) group by id_book",
+            nativeQuery = true)
+    int rebuildByLoan(@Param("loanId") Long loanId);
+
+    @Query(value = "select b.id as bookId, b.isbn as isbn, s.openLoan as openLoan, " +
+            "s.totalLoans as totalLoans, s.lastLoanDate as lastLoanDate " +
+            "from Book b left join BookLoanStats s on s.bookId = b.id where b.id = :id")
+    Optional<BookAvailability> findAvailabilityById(@Param("id") Long id);
+}
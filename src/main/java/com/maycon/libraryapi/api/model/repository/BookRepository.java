@@ -1,14 +1,74 @@
 package com.maycon.libraryapi.api.model.repository;
 
 import com.maycon.libraryapi.api.model.entity.Book;
+import com.maycon.libraryapi.api.model.projection.BookLookup;
+import com.maycon.libraryapi.config.CacheConfig;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookRepositoryCustom {
 
+    @Cacheable(cacheNames = CacheConfig.ISBN_EXISTS)
     boolean existsByIsbn(String isbn);
 
-    Optional<Book> findByIsbn(String isbn);
+    /**
+     * Only the id is cached: a managed Book would be shared across threads and persistence contexts, with its
+     * lazy loans and version going stale. Callers load the entity by primary key in their own context.
+     */
+    @Cacheable(cacheNames = CacheConfig.BOOKS_BY_ISBN)
+    @Query(value = "select b.id from Book b where b.isbn = :isbn")
+    Optional<Long> findIdByIsbn(@Param("isbn") String isbn);
+
+    /**
+     * Not cached: the ETag checks need the version every replica agrees on, and this is a primary key read.
+     */
+    @Query(value = "select b.version from Book b where b.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * Books changed after the ({@code changedAt}, {@code lastId}) cursor. updated_at is set by the database on
+     * every insert and update, so edits made on any node show up here.
+     */
+    @Query(value = "select b from Book b where b.updatedAt > :changedAt " +
+            "or (b.updatedAt = :changedAt and b.id > :lastId) order by b.updatedAt, b.id")
+    List<Book> findChangedAfter(@Param("changedAt") LocalDateTime changedAt, @Param("lastId") Long lastId,
+                                Pageable pageable);
+
+    @Modifying
+    @Query(value = "update Book b set b.title = :title, b.author = :author, b.version = b.version + 1 " +
+            "where b.id = :id")
+    int updateDetails(@Param("id") Long id, @Param("title") String title, @Param("author") String author);
+
+    @Modifying
+    @Query(value = "update Book b set b.title = :title, b.author = :author, b.version = b.version + 1 " +
+            "where b.id = :id and b.version in :versions")
+    int updateDetails(@Param("id") Long id, @Param("title") String title, @Param("author") String author,
+                      @Param("versions") Collection<Long> versions);
+
+    @Modifying
+    @Query(value = "delete from Book b where b.id = :id")
+    int deleteBookById(@Param("id") Long id);
+
+    @Modifying
+    @Query(value = "delete from Book b where b.id = :id and b.version in :versions")
+    int deleteBookByIdAndVersionIn(@Param("id") Long id, @Param("versions") Collection<Long> versions);
+
+    @Query(value = "select b.id as id, b.title as title, b.author as author, b.isbn as isbn, s.openLoan as openLoan, " +
+            "s.totalLoans as totalLoans, s.lastLoanDate as lastLoanDate " +
+            "from Book b left join BookLoanStats s on s.bookId = b.id where b.isbn in :isbns")
+    List<BookLookup> findLookupsByIsbnIn(@Param("isbns") Collection<String> isbns);
+
+    @Query(value = "select b.isbn from Book b where b.isbn in :isbns")
+    Set<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
 
 }
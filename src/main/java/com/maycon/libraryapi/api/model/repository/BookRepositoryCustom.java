@@ -0,0 +1,20 @@
+package com.maycon.libraryapi.api.model.repository;
+
+import com.maycon.libraryapi.api.model.entity.Book;
+import com.maycon.libraryapi.api.model.projection.BookView;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+public interface BookRepositoryCustom {
+
+    void insertAll(List<Book> books);
+
+    List<Book> findAfter(Example<Book> example, Long lastId, int limit);
+
+    Slice<Book> findSlice(Example<Book> example, Pageable pageable);
+
+    List<BookView> findViews(Example<Book> example, Pageable pageable);
+}
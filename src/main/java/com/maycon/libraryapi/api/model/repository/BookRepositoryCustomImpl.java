@@ -0,0 +1,117 @@
+package com.maycon.libraryapi.api.model.repository;
+
+import com.maycon.libraryapi.api.model.entity.Book;
+import com.maycon.libraryapi.api.model.projection.BookView;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.convert.QueryByExamplePredicateBuilder;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RequiredArgsConstructor
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+
+    private static final String INSERT_BOOK = "insert into book (title, author, isbn) values (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public void insertAll(List<Book> books) {
+        jdbcTemplate.batchUpdate(INSERT_BOOK, books, books.size(), (statement, book) -> {
+            statement.setString(1, book.getTitle());
+            statement.setString(2, book.getAuthor());
+            statement.setString(3, book.getIsbn());
+        });
+    }
+
+    @Override
+    public List<Book> findAfter(Example<Book> example, Long lastId, int limit) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Book> query = builder.createQuery(Book.class);
+        Root<Book> book = query.from(Book.class);
+
+        Predicate predicate = builder.greaterThan(book.get("id"), lastId);
+        Predicate matches = QueryByExamplePredicateBuilder.getPredicate(book, builder, example);
+        if (matches != null) {
+            predicate = builder.and(predicate, matches);
+        }
+        query.select(book).where(predicate).orderBy(builder.asc(book.get("id")));
+
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public Slice<Book> findSlice(Example<Book> example, Pageable pageable) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Book> query = builder.createQuery(Book.class);
+        Root<Book> book = query.from(Book.class);
+
+        Predicate matches = QueryByExamplePredicateBuilder.getPredicate(book, builder, example);
+        if (matches != null) {
+            query.where(matches);
+        }
+        query.select(book).orderBy(QueryUtils.toOrders(pageable.getSort(), book, builder));
+
+        TypedQuery<Book> typedQuery = entityManager.createQuery(query);
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(typedQuery.getResultList(), pageable, false);
+        }
+        List<Book> books = typedQuery
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+        boolean hasNext = books.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? books.subList(0, pageable.getPageSize()) : books, pageable, hasNext);
+    }
+
+    @Override
+    public List<BookView> findViews(Example<Book> example, Pageable pageable) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<Book> book = query.from(Book.class);
+
+        Predicate matches = QueryByExamplePredicateBuilder.getPredicate(book, builder, example);
+        if (matches != null) {
+            query.where(matches);
+        }
+        query.multiselect(book.get("id"), book.get("title"), book.get("author"), book.get("isbn"))
+                .orderBy(QueryUtils.toOrders(pageable.getSort(), book, builder));
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize());
+        }
+        return typedQuery.getResultList().stream()
+                .map(row -> new BookRow(row.get(0, Long.class), row.get(1, String.class),
+                        row.get(2, String.class), row.get(3, String.class)))
+                .collect(Collectors.toList());
+    }
+
+    @Value
+    private static class BookRow implements BookView {
+        Long id;
+        String title;
+        String author;
+        String isbn;
+    }
+}
@@ -0,0 +1,50 @@
+package com.maycon.libraryapi.api.model.repository;
+
+import com.maycon.libraryapi.api.model.entity.JobLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+    @Modifying
+    @Transactional
+    @Query(value = "insert into job_lease (name, expires_at) select :name, timestamp '1970-01-01 00:00:00' from dual " +
+            "where not exists (select 1 from job_lease where name = :name)", nativeQuery = true)
+    int insertIfAbsent(@Param("name") String name);
+
+    /**
+     * Takes the lease when it is free or expired, or renews it when {@code owner} already holds it. The row lock
+     * of the update is what makes this safe across nodes: only one of them can see the old owner and match.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "update JobLease l set l.owner = :owner, l.expiresAt = :until " +
+            "where l.name = :name and (l.owner is null or l.owner = :owner or l.expiresAt < :now)")
+    int acquire(@Param("name") String name, @Param("owner") String owner,
+                @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Transactional
+    @Query(value = "update JobLease l set l.owner = null, l.expiresAt = :now where l.name = :name and l.owner = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query(value = "update JobLease l set l.owner = null, l.expiresAt = :now where l.owner = :owner")
+    int releaseAll(@Param("owner") String owner, @Param("now") LocalDateTime now);
+
+    @Query(value = "select l.name from JobLease l where l.owner = :owner and l.expiresAt > :now " +
+            "and l.name like concat(:prefix, '%') order by l.name")
+    List<String> findHeld(@Param("owner") String owner, @Param("prefix") String prefix,
+                          @Param("now") LocalDateTime now);
+
+    @Query(value = "select count(l) from JobLease l where l.owner is not null and l.expiresAt > :now " +
+            "and l.name like concat(:prefix, '%')")
+    long countLive(@Param("prefix") String prefix, @Param("now") LocalDateTime now);
+}
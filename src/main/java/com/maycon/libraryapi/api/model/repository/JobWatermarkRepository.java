@@ -0,0 +1,15 @@
+package com.maycon.libraryapi.api.model.repository;
+
+import com.maycon.libraryapi.api.model.entity.JobWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+public interface JobWatermarkRepository extends JpaRepository<JobWatermark, String> {
+
+    @Query(value = "select min(w.watermark) from JobWatermark w where w.name = :name or w.name like concat(:name, '-%')")
+    Optional<LocalDate> findOldestWatermark(@Param("name") String name);
+}
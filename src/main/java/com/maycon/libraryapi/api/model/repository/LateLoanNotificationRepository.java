@@ -0,0 +1,35 @@
+package com.maycon.libraryapi.api.model.repository;
+
+import com.maycon.libraryapi.api.model.entity.LateLoanNotification;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+public interface LateLoanNotificationRepository extends JpaRepository<LateLoanNotification, Long> {
+
+    @Query(value = "select n.idempotencyKey from LateLoanNotification n where n.idempotencyKey in :keys")
+    Set<String> findExistingKeys(@Param("keys") Collection<String> keys);
+
+    @Query(value = "select n from LateLoanNotification n where n.sentAt is null and n.attempts < :maxAttempts " +
+            "order by n.id")
+    List<LateLoanNotification> findPending(@Param("maxAttempts") int maxAttempts, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query(value = "update LateLoanNotification n set n.sentAt = :sentAt, n.attempts = n.attempts + 1 " +
+            "where n.id in :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") LocalDateTime sentAt);
+
+    @Modifying
+    @Transactional
+    @Query(value = "update LateLoanNotification n set n.attempts = n.attempts + 1 where n.id in :ids")
+    int markFailed(@Param("ids") Collection<Long> ids);
+}
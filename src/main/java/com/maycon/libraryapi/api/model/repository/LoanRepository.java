@@ -2,31 +2,66 @@ package com.maycon.libraryapi.api.model.repository;
 
 import com.maycon.libraryapi.api.model.entity.Book;
 import com.maycon.libraryapi.api.model.entity.Loan;
+import com.maycon.libraryapi.api.model.projection.LateLoan;
+import com.maycon.libraryapi.api.model.projection.LoanView;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
-public interface LoanRepository extends JpaRepository<Loan, Long> {
+public interface LoanRepository extends JpaRepository<Loan, Long>, JpaSpecificationExecutor<Loan>, LoanRepositoryCustom {
 
-    @Query(value = "select case when (count (l.id)) > 0 then true else false end " +
-            "from Loan l where l.book = :book and (l.returned is null or l.returned is false)")
-    boolean existsByBookAndNotReturned(@Param("book") Book book);
+    @Modifying
+    @Query(value = "update Loan l set l.returned = :returned where l.id = :id")
+    int markReturned(@Param("id") Long id, @Param("returned") Boolean returned);
 
-    @Query(value = "select l from Loan as l join l.book as b where b.isbn = :isbn or " +
-            "l.customer = :customer ")
-    Page<Loan> findByBookIsbnOrCustomer(
-            @Param("isbn") String isbn,
-            @Param("customer") String customer,
-            Pageable pageRequest);
+    @EntityGraph(attributePaths = "book")
+    Page<Loan> findByBook(Book book, Pageable pageable);
 
+    @EntityGraph(attributePaths = "book")
+    Slice<Loan> findSliceByBook(Book book, Pageable pageable);
 
-    Page<Loan> findByBook(Book book, Pageable pageable);
+    long countByBook(Book book);
+
+    @Query(value = "select l.id as id, l.customer as customer, l.customerEmail as customerEmail, " +
+            "b.id as bookId, b.title as bookTitle, b.author as bookAuthor, b.isbn as bookIsbn " +
+            "from Loan as l join l.book as b where l.book = :book",
+            countQuery = "select count(l.id) from Loan as l where l.book = :book")
+    Page<LoanView> findViewsByBook(@Param("book") Book book, Pageable pageable);
+
+    @Query(value = "select count(l.id) from Loan l where l.returned is null or l.returned is false")
+    long countOpen();
+
+    @Query(value = "select count(l.id) from Loan l " +
+            "where l.dueDate <= :today and (l.returned is null or l.returned is false)")
+    long countOverdue(@Param("today") LocalDate today);
+
+    /**
+     * The rows come from a range scan of ix_loan_due_date over the window, and the shard test only filters what
+     * that scan returns. Shards are ids modulo the shard count rather than id ranges: ranges would need bounds
+     * every node agrees on while ids keep growing, and would pile the newest loans into the last shard.
+     */
+    @Query(value = "select l.id as id, l.customerEmail as customerEmail from Loan l " +
+            "where l.dueDate > :after and l.dueDate <= :until and l.overdueNotifiedAt is null " +
+            "and (l.returned is null or l.returned is false) and mod(l.id, :shards) = :shard order by l.id")
+    List<LateLoan> findNewlyOverdue(
+            @Param("after") LocalDate after,
+            @Param("until") LocalDate until,
+            @Param("shard") int shard,
+            @Param("shards") int shards,
+            Pageable pageable);
 
-    @Query(value = "select l from Loan l where l.loanDate <= :threeDaysAgo and (l.returned is null or l.returned is false)")
-    List<Loan> findByLoanDateLessThanAndNotReturned(@Param("threeDaysAgo") LocalDate threeDaysAgo);
+    @Modifying
+    @Query(value = "update Loan l set l.overdueNotifiedAt = :notifiedAt where l.id in :ids")
+    int markOverdueNotified(@Param("ids") Collection<Long> ids, @Param("notifiedAt") LocalDateTime notifiedAt);
 }
@@ -0,0 +1,18 @@
+package com.maycon.libraryapi.api.model.repository;
+
+import com.maycon.libraryapi.api.model.entity.Loan;
+import com.maycon.libraryapi.api.model.projection.LoanView;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface LoanRepositoryCustom {
+
+    List<Loan> findAfter(Specification<Loan> spec, Long lastId, int limit);
+
+    Slice<Loan> findSlice(Specification<Loan> spec, Pageable pageable);
+
+    List<LoanView> findViews(Specification<Loan> spec, Pageable pageable);
+}
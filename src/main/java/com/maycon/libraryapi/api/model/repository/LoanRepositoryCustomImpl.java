@@ -0,0 +1,108 @@
+package com.maycon.libraryapi.api.model.repository;
+
+import com.maycon.libraryapi.api.model.entity.Book;
+import com.maycon.libraryapi.api.model.entity.Loan;
+import com.maycon.libraryapi.api.model.projection.LoanView;
+import lombok.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class LoanRepositoryCustomImpl implements LoanRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Loan> findAfter(Specification<Loan> spec, Long lastId, int limit) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Loan> query = builder.createQuery(Loan.class);
+        Root<Loan> loan = query.from(Loan.class);
+        loan.fetch("book");
+
+        Predicate predicate = builder.greaterThan(loan.get("id"), lastId);
+        Predicate matches = spec.toPredicate(loan, query, builder);
+        if (matches != null) {
+            predicate = builder.and(predicate, matches);
+        }
+        query.select(loan).where(predicate).orderBy(builder.asc(loan.get("id")));
+
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public Slice<Loan> findSlice(Specification<Loan> spec, Pageable pageable) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Loan> query = builder.createQuery(Loan.class);
+        Root<Loan> loan = query.from(Loan.class);
+        loan.fetch("book");
+
+        Predicate matches = spec.toPredicate(loan, query, builder);
+        if (matches != null) {
+            query.where(matches);
+        }
+        query.select(loan).orderBy(QueryUtils.toOrders(pageable.getSort(), loan, builder));
+
+        TypedQuery<Loan> typedQuery = entityManager.createQuery(query);
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(typedQuery.getResultList(), pageable, false);
+        }
+        List<Loan> loans = typedQuery
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+        boolean hasNext = loans.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? loans.subList(0, pageable.getPageSize()) : loans, pageable, hasNext);
+    }
+
+    @Override
+    public List<LoanView> findViews(Specification<Loan> spec, Pageable pageable) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<Loan> loan = query.from(Loan.class);
+        Join<Loan, Book> book = loan.join("book");
+
+        Predicate matches = spec.toPredicate(loan, query, builder);
+        if (matches != null) {
+            query.where(matches);
+        }
+        query.multiselect(loan.get("id"), loan.get("customer"), loan.get("customerEmail"),
+                book.get("id"), book.get("title"), book.get("author"), book.get("isbn"))
+                .orderBy(QueryUtils.toOrders(pageable.getSort(), loan, builder));
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize());
+        }
+        return typedQuery.getResultList().stream()
+                .map(row -> new LoanRow(row.get(0, Long.class), row.get(1, String.class), row.get(2, String.class),
+                        row.get(3, Long.class), row.get(4, String.class), row.get(5, String.class),
+                        row.get(6, String.class)))
+                .collect(Collectors.toList());
+    }
+
+    @Value
+    private static class LoanRow implements LoanView {
+        Long id;
+        String customer;
+        String customerEmail;
+        Long bookId;
+        String bookTitle;
+        String bookAuthor;
+        String bookIsbn;
+    }
+}
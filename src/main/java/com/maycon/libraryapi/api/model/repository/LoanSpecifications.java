@@ -0,0 +1,50 @@
+package com.maycon.libraryapi.api.model.repository;
+
+import com.maycon.libraryapi.api.model.entity.Book;
+import com.maycon.libraryapi.api.model.entity.Loan;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+import java.time.LocalDate;
+
+/**
+ * Loan search criteria. Every predicate stays on loan columns so each one can be served by its own index;
+ * combine only the ones the caller actually supplied.
+ */
+public final class LoanSpecifications {
+
+    private LoanSpecifications() {
+    }
+
+    /**
+     * Loans of the book with the given isbn. The isbn is resolved through the unique isbn index in a
+     * subquery, so the loan side is a lookup on id_book instead of a join filtered row by row.
+     */
+    public static Specification<Loan> bookIsbn(String isbn) {
+        return (loan, query, builder) -> {
+            Subquery<Long> bookId = query.subquery(Long.class);
+            Root<Book> book = bookId.from(Book.class);
+            bookId.select(book.get("id")).where(builder.equal(book.get("isbn"), isbn));
+            return loan.get("book").get("id").in(bookId);
+        };
+    }
+
+    public static Specification<Loan> customer(String customer) {
+        return (loan, query, builder) -> builder.equal(loan.get("customer"), customer);
+    }
+
+    public static Specification<Loan> loanedFrom(LocalDate from) {
+        return (loan, query, builder) -> builder.greaterThanOrEqualTo(loan.get("loanDate"), from);
+    }
+
+    public static Specification<Loan> loanedUntil(LocalDate to) {
+        return (loan, query, builder) -> builder.lessThanOrEqualTo(loan.get("loanDate"), to);
+    }
+
+    public static Specification<Loan> returned(boolean returned) {
+        return (loan, query, builder) -> returned
+                ? builder.isTrue(loan.get("returned"))
+                : builder.or(builder.isNull(loan.get("returned")), builder.isFalse(loan.get("returned")));
+    }
+}
@@ -0,0 +1,76 @@
+package com.maycon.libraryapi.api.model.repository;
+
+import com.maycon.libraryapi.api.model.entity.Book;
+import io.r2dbc.spi.Row;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "application.reactive.enabled", havingValue = "true")
+public class ReactiveBookRepository {
+
+    private static final String SELECT = "select id, title, author, isbn from book ";
+
+    private final DatabaseClient client;
+
+    public Mono<Book> findById(Long id) {
+        return client.execute(SELECT + "where id = :id")
+                .bind("id", id)
+                .map((row, metadata) -> toBook(row))
+                .one();
+    }
+
+    /**
+     * Same matching as the JPA example query: every non-null field is a case-insensitive "contains",
+     * except the id, which must be equal.
+     */
+    public Flux<Book> findAfter(Book filter, long lastId) {
+        StringBuilder sql = new StringBuilder(SELECT).append("where id > :lastId");
+        if (filter.getId() != null) {
+            sql.append(" and id = :id");
+        }
+        if (filter.getTitle() != null) {
+            sql.append(" and lower(title) like :title");
+        }
+        if (filter.getAuthor() != null) {
+            sql.append(" and lower(author) like :author");
+        }
+        if (filter.getIsbn() != null) {
+            sql.append(" and lower(isbn) like :isbn");
+        }
+        sql.append(" order by id");
+
+        DatabaseClient.GenericExecuteSpec spec = client.execute(sql.toString()).bind("lastId", lastId);
+        if (filter.getId() != null) {
+            spec = spec.bind("id", filter.getId());
+        }
+        if (filter.getTitle() != null) {
+            spec = spec.bind("title", contains(filter.getTitle()));
+        }
+        if (filter.getAuthor() != null) {
+            spec = spec.bind("author", contains(filter.getAuthor()));
+        }
+        if (filter.getIsbn() != null) {
+            spec = spec.bind("isbn", contains(filter.getIsbn()));
+        }
+        return spec.map((row, metadata) -> toBook(row)).all();
+    }
+
+    private static String contains(String value) {
+        return "%" + value.toLowerCase() + "%";
+    }
+
+    private static Book toBook(Row row) {
+        return Book.builder()
+                .id(row.get("id", Long.class))
+                .title(row.get("title", String.class))
+                .author(row.get("author", String.class))
+                .isbn(row.get("isbn", String.class))
+                .build();
+    }
+}
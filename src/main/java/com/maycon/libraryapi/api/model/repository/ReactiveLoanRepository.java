@@ -0,0 +1,86 @@
+package com.maycon.libraryapi.api.model.repository;
+
+import com.maycon.libraryapi.api.DTO.LoanFilterDTO;
+import com.maycon.libraryapi.api.model.entity.Book;
+import com.maycon.libraryapi.api.model.entity.Loan;
+import io.r2dbc.spi.Row;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+
+@Repository
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "application.reactive.enabled", havingValue = "true")
+public class ReactiveLoanRepository {
+
+    private static final String SELECT = "select l.id, l.customer, l.customer_email, " +
+            "b.id as book_id, b.title, b.author, b.isbn from loan l join book b on b.id = l.id_book ";
+    private static final String BOOK_ID_BY_ISBN = "select id from book where isbn = :isbn";
+
+    private final DatabaseClient client;
+
+    /**
+     * Same criteria as the paged loan search, so both routes return the same loans for the same query string.
+     */
+    public Flux<Loan> findAfter(LoanFilterDTO filter, long lastId) {
+        String isbn = filter.getIsbn();
+        String customer = filter.getCustomer();
+        String where = "where l.id > :lastId ";
+        if (StringUtils.hasText(isbn) && StringUtils.hasText(customer)) {
+            where += "and (l.id_book = (" + BOOK_ID_BY_ISBN + ") or l.customer = :customer) ";
+        } else if (StringUtils.hasText(isbn)) {
+            where += "and l.id_book = (" + BOOK_ID_BY_ISBN + ") ";
+        } else if (StringUtils.hasText(customer)) {
+            where += "and l.customer = :customer ";
+        }
+        if (filter.getLoanDateFrom() != null) {
+            where += "and l.loan_date >= :loanDateFrom ";
+        }
+        if (filter.getLoanDateTo() != null) {
+            where += "and l.loan_date <= :loanDateTo ";
+        }
+        if (filter.getReturned() != null) {
+            where += filter.getReturned() ? "and l.returned = true " : "and (l.returned is null or l.returned = false) ";
+        }
+        DatabaseClient.GenericExecuteSpec spec = client.execute(SELECT + where + "order by l.id")
+                .bind("lastId", lastId);
+        if (StringUtils.hasText(isbn)) {
+            spec = spec.bind("isbn", isbn);
+        }
+        if (StringUtils.hasText(customer)) {
+            spec = spec.bind("customer", customer);
+        }
+        if (filter.getLoanDateFrom() != null) {
+            spec = spec.bind("loanDateFrom", filter.getLoanDateFrom());
+        }
+        if (filter.getLoanDateTo() != null) {
+            spec = spec.bind("loanDateTo", filter.getLoanDateTo());
+        }
+        return spec.map((row, metadata) -> toLoan(row)).all();
+    }
+
+    public Flux<Loan> findByBookAfter(Book book, long lastId) {
+        return client.execute(SELECT + "where l.id_book = :bookId and l.id > :lastId order by l.id")
+                .bind("bookId", book.getId())
+                .bind("lastId", lastId)
+                .map((row, metadata) -> toLoan(row))
+                .all();
+    }
+
+    private static Loan toLoan(Row row) {
+        return Loan.builder()
+                .id(row.get("id", Long.class))
+                .customer(row.get("customer", String.class))
+                .customerEmail(row.get("customer_email", String.class))
+                .book(Book.builder()
+                        .id(row.get("book_id", Long.class))
+                        .title(row.get("title", String.class))
+                        .author(row.get("author", String.class))
+                        .isbn(row.get("isbn", String.class))
+                        .build())
+                .build();
+    }
+}
@@ -1,24 +1,48 @@
 package com.maycon.libraryapi.api.resource;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.maycon.libraryapi.api.DTO.BookAvailabilityDTO;
 import com.maycon.libraryapi.api.DTO.BookDTO;
+import com.maycon.libraryapi.api.DTO.BookImportResultDTO;
+import com.maycon.libraryapi.api.DTO.BookLookupDTO;
+import com.maycon.libraryapi.api.DTO.CountedPageDTO;
+import com.maycon.libraryapi.api.DTO.CursorPageDTO;
 import com.maycon.libraryapi.api.DTO.LoanDTO;
+import com.maycon.libraryapi.api.mapper.BookMapper;
+import com.maycon.libraryapi.api.mapper.LoanMapper;
 import com.maycon.libraryapi.api.model.entity.Book;
-import com.maycon.libraryapi.api.model.entity.Loan;
+import com.maycon.libraryapi.api.model.projection.BookLookup;
+import com.maycon.libraryapi.api.model.projection.BookView;
+import com.maycon.libraryapi.api.model.projection.LoanView;
 import com.maycon.libraryapi.api.service.BookService;
 import com.maycon.libraryapi.api.service.LoanService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @RestController
@@ -28,77 +52,184 @@ import java.util.stream.Collectors;
 public class BookController {
 
     private final BookService service;
-    private final ModelMapper modelMapper;
     private final LoanService loanService;
+    private final BookMapper bookMapper;
+    private final LoanMapper loanMapper;
+    private final ObjectMapper objectMapper;
+
+    @Value("${application.books.http.max-age:0s}")
+    private Duration maxAge = Duration.ZERO;
+
+    @Value("${application.books.lookup.max-isbns:10000}")
+    private int maxLookupIsbns = 10000;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     @ApiOperation("Create a book")
     public BookDTO create(@RequestBody @Valid BookDTO dto) {
 
-        Book entity = modelMapper.map(dto, Book.class);
+        Book entity = bookMapper.toEntity(dto);
 
         entity = service.save(entity);
-        return modelMapper.map(entity, BookDTO.class);
+        return bookMapper.toDTO(entity);
+    }
+
+    @PostMapping(value = "bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation("Import a JSON array of books")
+    public BookImportResultDTO importJson(InputStream body) throws IOException {
+        try (MappingIterator<BookDTO> rows = objectMapper.readerFor(BookDTO.class).readValues(body)) {
+            return service.importBooks(rows);
+        }
+    }
+
+    @PostMapping(value = "bulk", consumes = "text/csv")
+    @ApiOperation("Import a CSV file of books")
+    public BookImportResultDTO importCsv(Reader body) throws IOException {
+        try (BookCsvReader rows = new BookCsvReader(body)) {
+            return service.importBooks(rows);
+        }
+    }
+
+    @GetMapping("search")
+    @ApiOperation("Search books by title, author or isbn, most relevant first")
+    public ResponseEntity<List<BookDTO>> search(@RequestParam String q, @RequestParam(defaultValue = "20") int size,
+                                                @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        List<Book> books = service.search(q, Cursors.size(size));
+        String etag = ETags.of(books);
+        if (!ETags.noneMatch(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl()).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl()).body(books.stream()
+                .map(bookMapper::toDTO)
+                .collect(Collectors.toList()));
     }
 
     @GetMapping("{id}")
     @ApiOperation("Obtem detalhes do livro")
-    public BookDTO get(@PathVariable Long id) {
+    public ResponseEntity<BookDTO> get(@PathVariable Long id,
+                                       @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            String etag = service.getVersion(id)
+                    .map(ETags::of)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+            if (!ETags.noneMatch(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl()).build();
+            }
+        }
 
         return service.getById(id)
-                .map(book -> modelMapper.map(book, BookDTO.class))
+                .map(book -> ResponseEntity.ok()
+                        .eTag(ETags.of(book.getVersion()))
+                        .cacheControl(cacheControl())
+                        .body(bookMapper.toDTO(book)))
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
     }
 
     @DeleteMapping("{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    public void delete(@PathVariable Long id) {
-        Book book = service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        ;
-        service.delete(book);
+    public void delete(@PathVariable Long id,
+                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (!service.deleteById(id, ETags.ifMatchVersions(ifMatch))) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
     }
 
     @PutMapping("{id}")
-    public BookDTO update(@PathVariable Long id, BookDTO dto) {
-        return service.getById(id).map(book -> {
-
-            book.setAuthor(dto.getAuthor());
-            book.setAuthor(dto.getAuthor());
-            book.setTitle(dto.getTitle());
-            book = service.update(book);
-            return modelMapper.map(book, BookDTO.class);
-
-        }).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-
+    public ResponseEntity<BookDTO> update(@PathVariable Long id, BookDTO dto,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return service.updateDetails(id, dto.getTitle(), dto.getAuthor(), ETags.ifMatchVersions(ifMatch))
+                .map(book -> ResponseEntity.ok().eTag(ETags.of(book.getVersion())).body(bookMapper.toDTO(book)))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
     }
 
     @GetMapping
     public Page<BookDTO> find(BookDTO dto, Pageable pageRequest) {
-        Book filter = modelMapper.map(dto, Book.class);
-        Page<Book> result = service.find(filter, pageRequest);
+        Book filter = bookMapper.toEntity(dto);
+        Page<BookView> result = service.findViews(filter, pageRequest);
         List<BookDTO> list = result.getContent().stream()
-                .map(entity -> modelMapper.map(entity, BookDTO.class))
+                .map(bookMapper::toDTO)
                 .collect(Collectors.toList());
         return new PageImpl<BookDTO>(list, pageRequest, result.getTotalElements());
     }
 
+    @GetMapping(params = {"count", "!after"})
+    @ApiOperation("Find books with an exact, estimated or no total count")
+    public CountedPageDTO<BookDTO> find(BookDTO dto, Pageable pageRequest, @RequestParam String count) {
+        Book filter = bookMapper.toEntity(dto);
+        switch (Pages.countMode(count)) {
+            case EXACT:
+                return Pages.exact(service.find(filter, pageRequest), bookMapper::toDTO);
+            case ESTIMATED:
+                return Pages.estimated(service.findSlice(filter, pageRequest), service.estimateCount(filter), bookMapper::toDTO);
+            default:
+                return Pages.uncounted(service.findSlice(filter, pageRequest), bookMapper::toDTO);
+        }
+    }
+
+    @GetMapping(params = "after")
+    @ApiOperation("Find books after a cursor, without offset or count queries")
+    public CursorPageDTO<BookDTO> findAfter(BookDTO dto,
+                                            @RequestParam String after,
+                                            @RequestParam(defaultValue = "20") int size) {
+        Book filter = bookMapper.toEntity(dto);
+        Slice<Book> result = service.findAfter(filter, Cursors.decode(after), Cursors.size(size));
+        return Cursors.page(result, Book::getId, bookMapper::toDTO);
+    }
+
+    @GetMapping("{id}/availability")
+    @ApiOperation("Tell whether a book is available and how often it was loaned")
+    public BookAvailabilityDTO availability(@PathVariable Long id) {
+        return loanService.getAvailability(id)
+                .map(bookMapper::toDTO)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    }
+
+    @PostMapping("lookup")
+    @ApiOperation("Resolve many isbns to books, their availability and loan counts; unknown isbns are left out")
+    public Map<String, BookLookupDTO> lookup(@RequestBody List<String> isbns) {
+        if (isbns.size() > maxLookupIsbns) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Too many isbns.");
+        }
+        Map<String, BookLookup> found = service.lookup(isbns).stream()
+                .collect(Collectors.toMap(BookLookup::getIsbn, Function.identity()));
+        Map<String, BookLookupDTO> byIsbn = new LinkedHashMap<>();
+        for (String isbn : isbns) {
+            BookLookup book = found.get(isbn);
+            if (book != null) {
+                byIsbn.putIfAbsent(isbn, bookMapper.toDTO(book));
+            }
+        }
+        return byIsbn;
+    }
+
     @GetMapping("{id}/loans")
     public Page<LoanDTO> loansByBook(@PathVariable Long id, Pageable pageable){
         Book book = service.getById(id).orElseThrow(()-> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        Page<Loan> result = loanService.getLoansByBook(book, pageable);
+        Page<LoanView> result = loanService.getLoanViewsByBook(book, pageable);
 
         List<LoanDTO> list = result.getContent()
                 .stream()
-                .map(loan -> {
-                    Book loanBook = loan.getBook();
-                    BookDTO bookDTO = modelMapper.map(loanBook, BookDTO.class);
-                    LoanDTO loanDTO = modelMapper.map(loan, LoanDTO.class);
-                    loanDTO.setBook((bookDTO));
-                    return loanDTO;
-                }).collect(Collectors.toList());
+                .map(loanMapper::toDTO)
+                .collect(Collectors.toList());
 
         return new PageImpl<LoanDTO>(list, pageable, result.getTotalElements());
     }
 
+    @GetMapping(value = "{id}/loans", params = "count")
+    public CountedPageDTO<LoanDTO> loansByBook(@PathVariable Long id, Pageable pageable, @RequestParam String count) {
+        Book book = service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        switch (Pages.countMode(count)) {
+            case EXACT:
+                return Pages.exact(loanService.getLoansByBook(book, pageable), loanMapper::toDTO);
+            case ESTIMATED:
+                return Pages.estimated(loanService.getLoanSliceByBook(book, pageable),
+                        loanService.estimateLoansByBookCount(book), loanMapper::toDTO);
+            default:
+                return Pages.uncounted(loanService.getLoanSliceByBook(book, pageable), loanMapper::toDTO);
+        }
+    }
+
+    private CacheControl cacheControl() {
+        return CacheControl.maxAge(maxAge.getSeconds(), TimeUnit.SECONDS).mustRevalidate();
+    }
 }
@@ -0,0 +1,93 @@
+package com.maycon.libraryapi.api.resource;
+
+import com.maycon.libraryapi.api.DTO.BookDTO;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+class BookCsvReader implements Iterator<BookDTO>, Closeable {
+
+    private static final String HEADER = "title,author,isbn";
+
+    private final BufferedReader reader;
+    private String nextLine;
+
+    BookCsvReader(Reader reader) {
+        this.reader = new BufferedReader(reader);
+        this.nextLine = readLine();
+        if (nextLine != null && nextLine.replace(" ", "").equalsIgnoreCase(HEADER)) {
+            this.nextLine = readLine();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return nextLine != null;
+    }
+
+    @Override
+    public BookDTO next() {
+        if (nextLine == null) {
+            throw new NoSuchElementException();
+        }
+        List<String> fields = split(nextLine);
+        nextLine = readLine();
+        return BookDTO.builder()
+                .title(field(fields, 0))
+                .author(field(fields, 1))
+                .isbn(field(fields, 2))
+                .build();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String readLine() {
+        try {
+            String line;
+            do {
+                line = reader.readLine();
+            } while (line != null && line.trim().isEmpty());
+            return line;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String field(List<String> fields, int index) {
+        return index < fields.size() ? fields.get(index).trim() : null;
+    }
+
+    private List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == ',' && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,53 @@
+package com.maycon.libraryapi.api.resource;
+
+import com.maycon.libraryapi.api.DTO.CursorPageDTO;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+final class Cursors {
+
+    static final int MAX_SIZE = 100;
+
+    private Cursors() {
+    }
+
+    static Long decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor.");
+        }
+    }
+
+    static String encode(long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Long.toString(id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static int size(int size) {
+        return Math.max(1, Math.min(size, MAX_SIZE));
+    }
+
+    static <E, D> CursorPageDTO<D> page(Slice<E> slice, ToLongFunction<E> id, Function<E, D> mapper) {
+        List<E> content = slice.getContent();
+        String next = slice.hasNext() && !content.isEmpty()
+                ? encode(id.applyAsLong(content.get(content.size() - 1)))
+                : null;
+
+        return CursorPageDTO.<D>builder()
+                .content(content.stream().map(mapper).collect(Collectors.toList()))
+                .size(content.size())
+                .next(next)
+                .build();
+    }
+}
@@ -0,0 +1,72 @@
+package com.maycon.libraryapi.api.resource;
+
+import com.maycon.libraryapi.api.model.entity.Book;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+final class ETags {
+
+    private static final String WEAK_PREFIX = "W/";
+
+    private ETags() {
+    }
+
+    static String of(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    static String of(List<Book> books) {
+        StringBuilder fingerprint = new StringBuilder();
+        books.forEach(book -> fingerprint.append(book.getId()).append(':').append(book.getVersion()).append(','));
+        return "\"" + DigestUtils.md5DigestAsHex(fingerprint.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * Weak comparison, as If-None-Match requires.
+     */
+    static boolean noneMatch(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return true;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || strip(tag).equals(strip(etag))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Versions an If-Match header accepts, or null when any version does (no header or "*"). Strong
+     * comparison, as If-Match requires: weak and foreign tags never match and are left out.
+     */
+    static Set<Long> ifMatchVersions(String ifMatch) {
+        if (ifMatch == null) {
+            return null;
+        }
+        Set<Long> versions = new HashSet<>();
+        for (String candidate : ifMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return null;
+            }
+            if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+                try {
+                    versions.add(Long.valueOf(tag.substring(1, tag.length() - 1)));
+                } catch (NumberFormatException e) {
+                    // not one of our tags
+                }
+            }
+        }
+        return versions;
+    }
+
+    private static String strip(String tag) {
+        return tag.startsWith(WEAK_PREFIX) ? tag.substring(WEAK_PREFIX.length()) : tag;
+    }
+}
@@ -1,19 +1,21 @@
 package com.maycon.libraryapi.api.resource;
 
-import com.maycon.libraryapi.api.DTO.BookDTO;
+import com.maycon.libraryapi.api.DTO.CountedPageDTO;
+import com.maycon.libraryapi.api.DTO.CursorPageDTO;
 import com.maycon.libraryapi.api.DTO.LoanDTO;
 import com.maycon.libraryapi.api.DTO.LoanFilterDTO;
 import com.maycon.libraryapi.api.DTO.ReturnedLoanDTO;
+import com.maycon.libraryapi.api.mapper.LoanMapper;
 import com.maycon.libraryapi.api.model.entity.Book;
 import com.maycon.libraryapi.api.model.entity.Loan;
+import com.maycon.libraryapi.api.model.projection.LoanView;
 import com.maycon.libraryapi.api.service.BookService;
 import com.maycon.libraryapi.api.service.LoanService;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
@@ -28,18 +30,15 @@ import java.util.stream.Collectors;
 public class LoanController {
     private final LoanService service;
     private final BookService bookService;
-    private final ModelMapper modelMapper;
+    private final LoanMapper loanMapper;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public Long create(@RequestBody LoanDTO dto) {
         Book book = bookService.getBookByIsbn(dto.getIsbn())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Book not found for passed isbn."));
-        Loan entity = Loan.builder()
-                .book(book)
-                .customer(dto.getCustomer())
-                .loanDate(LocalDate.now())
-                .build();
+        Loan entity = loanMapper.toEntity(dto, book);
+        entity.setLoanDate(LocalDate.now());
         entity = service.save(entity);
 
         return entity.getId();
@@ -49,28 +48,41 @@ public class LoanController {
     public void returnBook(
             @PathVariable Long id,
             @RequestBody ReturnedLoanDTO dto){
-        Loan loan = service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        loan.setReturned(dto.getReturned());
-
-        service.update(loan);
+        if (!service.markReturned(id, dto.getReturned())) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
     }
 
     @GetMapping
     public Page<LoanDTO> find(LoanFilterDTO dto, Pageable pageRequest){
-        Page<Loan> result = service.find(dto, pageRequest);
+        Page<LoanView> result = service.findViews(dto, pageRequest);
 
         List<LoanDTO> loans = result
                 .getContent()
                 .stream()
-                .map(entity -> {
-                    Book book = entity.getBook();
-                    BookDTO bookDTO = modelMapper.map(book, BookDTO.class);
-                    LoanDTO loanDTO = modelMapper.map(entity, LoanDTO.class);
-                    loanDTO.setBook(bookDTO);
-
-                    return loanDTO;
-                }).collect(Collectors.toList());
+                .map(loanMapper::toDTO)
+                .collect(Collectors.toList());
 
         return new PageImpl<LoanDTO>(loans, pageRequest, result.getTotalElements());
     }
+
+    @GetMapping(params = {"count", "!after"})
+    public CountedPageDTO<LoanDTO> find(LoanFilterDTO dto, Pageable pageRequest, @RequestParam String count) {
+        switch (Pages.countMode(count)) {
+            case EXACT:
+                return Pages.exact(service.find(dto, pageRequest), loanMapper::toDTO);
+            case ESTIMATED:
+                return Pages.estimated(service.findSlice(dto, pageRequest), service.estimateCount(dto), loanMapper::toDTO);
+            default:
+                return Pages.uncounted(service.findSlice(dto, pageRequest), loanMapper::toDTO);
+        }
+    }
+
+    @GetMapping(params = "after")
+    public CursorPageDTO<LoanDTO> findAfter(LoanFilterDTO dto,
+                                            @RequestParam String after,
+                                            @RequestParam(defaultValue = "20") int size) {
+        Slice<Loan> result = service.findAfter(dto, Cursors.decode(after), Cursors.size(size));
+        return Cursors.page(result, Loan::getId, loanMapper::toDTO);
+    }
 }
@@ -0,0 +1,51 @@
+package com.maycon.libraryapi.api.resource;
+
+import com.maycon.libraryapi.api.DTO.CountedPageDTO;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+final class Pages {
+
+    enum CountMode {
+        EXACT, ESTIMATED, NONE
+    }
+
+    private Pages() {
+    }
+
+    static CountMode countMode(String count) {
+        try {
+            return CountMode.valueOf(count.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid count mode.");
+        }
+    }
+
+    static <E, D> CountedPageDTO<D> exact(Page<E> page, Function<E, D> mapper) {
+        return page(page, page.getTotalElements(), true, mapper);
+    }
+
+    static <E, D> CountedPageDTO<D> estimated(Slice<E> slice, long total, Function<E, D> mapper) {
+        return page(slice, total, false, mapper);
+    }
+
+    static <E, D> CountedPageDTO<D> uncounted(Slice<E> slice, Function<E, D> mapper) {
+        return page(slice, null, false, mapper);
+    }
+
+    private static <E, D> CountedPageDTO<D> page(Slice<E> slice, Long total, boolean exact, Function<E, D> mapper) {
+        return CountedPageDTO.<D>builder()
+                .content(slice.getContent().stream().map(mapper).collect(Collectors.toList()))
+                .page(slice.getNumber())
+                .size(slice.getSize())
+                .hasNext(slice.hasNext())
+                .totalElements(total)
+                .totalExact(exact)
+                .build();
+    }
+}
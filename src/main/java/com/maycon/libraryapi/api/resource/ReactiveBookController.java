@@ -0,0 +1,62 @@
+package com.maycon.libraryapi.api.resource;
+
+import com.maycon.libraryapi.api.DTO.BookDTO;
+import com.maycon.libraryapi.api.DTO.LoanDTO;
+import com.maycon.libraryapi.api.mapper.BookMapper;
+import com.maycon.libraryapi.api.mapper.LoanMapper;
+import com.maycon.libraryapi.api.service.ReactiveBookService;
+import com.maycon.libraryapi.api.service.ReactiveLoanService;
+import io.swagger.annotations.ApiOperation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Streams the book listings one JSON document per line, at the pace the client reads them.
+ * Selected with {@code Accept: application/stream+json}; the paged JSON endpoints stay in {@link BookController}.
+ * The {@code after} handlers are mapped separately so they outrank the cursor-page handlers for stream requests.
+ */
+@RestController
+@RequestMapping(value = "/api/books", produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "application.reactive.enabled", havingValue = "true")
+public class ReactiveBookController {
+
+    private final ReactiveBookService service;
+    private final ReactiveLoanService loanService;
+    private final BookMapper bookMapper;
+    private final LoanMapper loanMapper;
+
+    @GetMapping
+    @ApiOperation("Stream the books matching the filter")
+    public Flux<BookDTO> find(BookDTO dto) {
+        return service.find(bookMapper.toEntity(dto), null)
+                .map(bookMapper::toDTO);
+    }
+
+    @GetMapping(params = "after")
+    @ApiOperation("Stream the books matching the filter, resuming after a cursor")
+    public Flux<BookDTO> findAfter(BookDTO dto, @RequestParam String after) {
+        return service.find(bookMapper.toEntity(dto), Cursors.decode(after))
+                .map(bookMapper::toDTO);
+    }
+
+    @GetMapping("{id}/loans")
+    @ApiOperation("Stream the loans of a book, optionally resuming after a cursor")
+    public Flux<LoanDTO> loansByBook(@PathVariable Long id, @RequestParam(required = false) String after) {
+        Long lastId = Cursors.decode(after);
+        return service.getById(id)
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)))
+                .flatMapMany(book -> loanService.getLoansByBook(book, lastId))
+                .map(loanMapper::toDTO);
+    }
+}
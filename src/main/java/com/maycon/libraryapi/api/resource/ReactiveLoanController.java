@@ -0,0 +1,35 @@
+package com.maycon.libraryapi.api.resource;
+
+import com.maycon.libraryapi.api.DTO.LoanDTO;
+import com.maycon.libraryapi.api.DTO.LoanFilterDTO;
+import com.maycon.libraryapi.api.mapper.LoanMapper;
+import com.maycon.libraryapi.api.service.ReactiveLoanService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+@RestController
+@RequestMapping(value = "/api/loans", produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "application.reactive.enabled", havingValue = "true")
+public class ReactiveLoanController {
+    private final ReactiveLoanService service;
+    private final LoanMapper loanMapper;
+
+    @GetMapping
+    public Flux<LoanDTO> find(LoanFilterDTO dto) {
+        return service.find(dto, null)
+                .map(loanMapper::toDTO);
+    }
+
+    @GetMapping(params = "after")
+    public Flux<LoanDTO> findAfter(LoanFilterDTO dto, @RequestParam String after) {
+        return service.find(dto, Cursors.decode(after))
+                .map(loanMapper::toDTO);
+    }
+}
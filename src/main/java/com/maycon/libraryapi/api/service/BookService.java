@@ -1,9 +1,17 @@
 package com.maycon.libraryapi.api.service;
 
+import com.maycon.libraryapi.api.DTO.BookDTO;
+import com.maycon.libraryapi.api.DTO.BookImportResultDTO;
 import com.maycon.libraryapi.api.model.entity.Book;
+import com.maycon.libraryapi.api.model.projection.BookLookup;
+import com.maycon.libraryapi.api.model.projection.BookView;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
 
 public interface BookService {
@@ -11,11 +19,37 @@ public interface BookService {
 
     Optional<Book> getById(Long id);
 
+    Optional<Long> getVersion(Long id);
+
     void delete(Book book);
 
     Book update(Book book);
 
+    /**
+     * Updates title and author in place. Versions, when given, are the ones the caller accepts; a book
+     * at any other version fails with an {@link org.springframework.dao.OptimisticLockingFailureException}.
+     */
+    Optional<Book> updateDetails(Long id, String title, String author, Collection<Long> versions);
+
+    boolean deleteById(Long id, Collection<Long> versions);
+
     Page<Book> find(Book filter, Pageable pageRequest);
 
+    Page<BookView> findViews(Book filter, Pageable pageRequest);
+
+    Slice<Book> findAfter(Book filter, Long lastId, int limit);
+
+    Slice<Book> findSlice(Book filter, Pageable pageRequest);
+
+    long estimateCount(Book filter);
+
     Optional<Book> getBookByIsbn(String isbn);
+
+    List<BookLookup> lookup(Collection<String> isbns);
+
+    BookImportResultDTO importBooks(Iterator<BookDTO> rows);
+
+    List<Book> search(String query, int limit);
+
+    int reindex();
 }
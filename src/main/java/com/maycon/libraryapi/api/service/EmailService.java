@@ -5,5 +5,5 @@ import java.util.List;
 
 public interface EmailService {
 
-    void sendMails(String message, List<String> mailsList);
+    MailDispatchReport sendMails(String message, List<String> mailsList);
 }
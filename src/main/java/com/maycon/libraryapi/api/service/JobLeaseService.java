@@ -0,0 +1,25 @@
+package com.maycon.libraryapi.api.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface JobLeaseService {
+
+    String getNodeId();
+
+    boolean tryAcquire(String job);
+
+    boolean tryAcquire(String job, LocalDateTime now);
+
+    void release(String job);
+
+    /**
+     * Names of the unexpired leases under {@code prefix} that this node holds.
+     */
+    List<String> getHeld(String prefix, LocalDateTime now);
+
+    /**
+     * Unexpired leases under {@code prefix}, whoever holds them.
+     */
+    long countLive(String prefix, LocalDateTime now);
+}
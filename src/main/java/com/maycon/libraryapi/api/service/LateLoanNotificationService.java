@@ -0,0 +1,17 @@
+package com.maycon.libraryapi.api.service;
+
+import com.maycon.libraryapi.api.model.projection.LateLoan;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface LateLoanNotificationService {
+
+    /**
+     * Adds the notifications missing for {@code date} to the outbox and marks every given loan as notified,
+     * in one transaction, so a loan is never marked without its notification or enqueued twice.
+     */
+    int enqueue(List<LateLoan> lateLoans, LocalDate date);
+
+    int dispatchPending(String message, int limit);
+}
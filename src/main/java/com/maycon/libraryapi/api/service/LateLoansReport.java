@@ -0,0 +1,24 @@
+package com.maycon.libraryapi.api.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LateLoansReport {
+
+    private int shard;
+    private long loans;
+    private long enqueued;
+    private int chunks;
+    private long readMillis;
+    private long enqueueMillis;
+    private LocalDate watermark;
+
+}
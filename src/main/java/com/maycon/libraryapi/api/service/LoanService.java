@@ -4,9 +4,14 @@ package com.maycon.libraryapi.api.service;
 import com.maycon.libraryapi.api.DTO.LoanFilterDTO;
 import com.maycon.libraryapi.api.model.entity.Book;
 import com.maycon.libraryapi.api.model.entity.Loan;
+import com.maycon.libraryapi.api.model.projection.BookAvailability;
+import com.maycon.libraryapi.api.model.projection.LateLoan;
+import com.maycon.libraryapi.api.model.projection.LoanView;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,9 +22,40 @@ public interface LoanService {
 
     Loan update(Loan loan);
 
+    boolean markReturned(Long id, Boolean returned);
+
     Page<Loan> find(LoanFilterDTO filter, Pageable pageable);
 
+    Page<LoanView> findViews(LoanFilterDTO filter, Pageable pageable);
+
+    Slice<Loan> findAfter(LoanFilterDTO filter, Long lastId, int limit);
+
+    Slice<Loan> findSlice(LoanFilterDTO filter, Pageable pageable);
+
+    long estimateCount(LoanFilterDTO filter);
+
     Page<Loan> getLoansByBook(Book book, Pageable pageable);
 
-    List<Loan> getAllLateLoans();
+    Page<LoanView> getLoanViewsByBook(Book book, Pageable pageable);
+
+    Slice<Loan> getLoanSliceByBook(Book book, Pageable pageable);
+
+    long estimateLoansByBookCount(Book book);
+
+    /**
+     * Unreturned loans, not yet notified, whose due date is after {@code after} and no later than {@code until},
+     * restricted to the loans whose id falls in {@code shard} out of {@code shards}.
+     */
+    List<LateLoan> getNewlyOverdueLoans(LocalDate after, LocalDate until, int shard, int shards, int limit);
+
+    LocalDate getOverdueWatermark(int shard, int shards);
+
+    void advanceOverdueWatermark(int shard, int shards, LocalDate watermark);
+
+    Optional<BookAvailability> getAvailability(Long bookId);
+
+
+    long countOpenLoans();
+
+    long countOverdueLoans();
 }
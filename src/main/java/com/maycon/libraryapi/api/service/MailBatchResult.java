@@ -0,0 +1,24 @@
+package com.maycon.libraryapi.api.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MailBatchResult {
+
+    private int batch;
+    private int recipients;
+    private int sent;
+    private List<String> failedRecipients;
+    private List<Integer> failedIndexes;
+    private int attempts;
+    private long latencyMillis;
+
+}
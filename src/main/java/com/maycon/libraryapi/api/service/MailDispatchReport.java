@@ -0,0 +1,28 @@
+package com.maycon.libraryapi.api.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MailDispatchReport {
+
+    private int sent;
+    private int failed;
+    private long latencyMillis;
+    private List<String> failedRecipients;
+
+    /**
+     * Positions in the list given to {@code sendMails} of the mails that failed, so callers can tell apart
+     * two mails to the same address.
+     */
+    private List<Integer> failedIndexes;
+    private List<MailBatchResult> batches;
+
+}
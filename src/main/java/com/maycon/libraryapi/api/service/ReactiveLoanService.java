@@ -0,0 +1,12 @@
+package com.maycon.libraryapi.api.service;
+
+import com.maycon.libraryapi.api.DTO.LoanFilterDTO;
+import com.maycon.libraryapi.api.model.entity.Book;
+import com.maycon.libraryapi.api.model.entity.Loan;
+import reactor.core.publisher.Flux;
+
+public interface ReactiveLoanService {
+    Flux<Loan> find(LoanFilterDTO filter, Long lastId);
+
+    Flux<Loan> getLoansByBook(Book book, Long lastId);
+}
@@ -1,33 +1,200 @@
 package com.maycon.libraryapi.api.service;
 
-import com.maycon.libraryapi.api.model.entity.Loan;
+import com.maycon.libraryapi.api.model.projection.LateLoan;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ScheduleService {
 
-    private static final String CRON_LATE_LOANS = "0 0 0 1/1 * ?";
+    private static final String NODE_LEASE = "overdue-loans/node-";
+    private static final String SHARD_LEASE = "overdue-loans/shard-";
+    private static final String DISPATCH_JOB = "late-loan-dispatch";
 
     private final LoanService loanService;
-    private final EmailService emailService;
+    private final LateLoanNotificationService notificationService;
+    private final BookService bookService;
+    private final JobLeaseService leaseService;
 
-    @Value("${aplication.mail.lateloans.message")
+    @Value("${application.mail.lateloans.message}")
     private String message;
 
-    @Scheduled(cron = CRON_LATE_LOANS)
-    public void sendMailToLateLoans() {
-        List<Loan> allLateLoans = loanService.getAllLateLoans();
-        List<String> mailsList = allLateLoans.stream().map(loan -> loan.getCustomerEmail())
-                .collect(Collectors.toList());
+    @Value("${application.mail.lateloans.chunk-size:500}")
+    private int chunkSize;
 
-        emailService.sendMails(message, mailsList);
+    @Value("${application.mail.outbox.max-per-run:1000}")
+    private int maxPerRun;
+
+    @Value("${application.loans.overdue.max-per-run:1000}")
+    private int overdueMaxPerRun;
+
+    @Value("${application.loans.overdue.shards:1}")
+    private int overdueShards = 1;
+
+    @Scheduled(fixedDelayString = "${application.loans.overdue.sweep-delay-millis:300000}")
+    public void sweepOverdueLoans() {
+        for (LateLoansReport report : sweepOverdueShards(LocalDateTime.now())) {
+            if (report.getLoans() > 0) {
+                log.info("Overdue loans enqueued for shard {}: {} of {} loans in {} chunks " +
+                                "(read {} ms, enqueue {} ms, watermark {})",
+                        report.getShard(), report.getEnqueued(), report.getLoans(), report.getChunks(),
+                        report.getReadMillis(), report.getEnqueueMillis(), report.getWatermark());
+            }
+        }
+    }
+
+    /**
+     * Only the node holding the dispatch lease drains the outbox, so a notification is never sent twice.
+     * The search index refresh below stays on every node: each one keeps its own index in memory.
+     */
+    @Scheduled(fixedDelayString = "${application.mail.outbox.dispatch-delay-millis:60000}")
+    public void dispatchLateLoanNotifications() {
+        if (!leaseService.tryAcquire(DISPATCH_JOB)) {
+            return;
+        }
+        try {
+            int sent = dispatchPendingNotifications();
+            if (sent > 0) {
+                log.info("Late loan notifications sent: {}", sent);
+            }
+        } finally {
+            leaseService.release(DISPATCH_JOB);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.books.search.refresh-delay-millis:60000}")
+    public void refreshBookSearchIndex() {
+        int indexed = bookService.reindex();
+        if (indexed > 0) {
+            log.info("Books added to the search index: {}", indexed);
+        }
+    }
+
+    /**
+     * Sweeps this node's share of the shards. Every node keeps a heartbeat lease, and the live heartbeats set
+     * the share each node may hold: {@code ceil(shards / nodes)}. Shard leases are renewed on every tick rather
+     * than released, a node above its share hands the extra shards back, and one below it claims free shards
+     * starting from a node-specific offset. A joining node therefore gets its share within a tick or two, and
+     * the shards of a dead node are taken over once its heartbeat and shard leases expire.
+     */
+    public List<LateLoansReport> sweepOverdueShards(LocalDateTime now) {
+        leaseService.tryAcquire(NODE_LEASE + leaseService.getNodeId(), now);
+        long nodes = Math.max(1, leaseService.countLive(NODE_LEASE, now));
+        long share = (overdueShards + nodes - 1) / nodes;
+
+        Set<String> held = new HashSet<>(leaseService.getHeld(SHARD_LEASE, now));
+        Set<Integer> claimed = new LinkedHashSet<>();
+        for (int shard = 0; shard < overdueShards; shard++) {
+            String lease = shardLease(shard);
+            if (!held.contains(lease)) {
+                continue;
+            }
+            if (claimed.size() < share && leaseService.tryAcquire(lease, now)) {
+                claimed.add(shard);
+            } else {
+                leaseService.release(lease);
+            }
+        }
+
+        int first = Math.floorMod(leaseService.getNodeId().hashCode(), overdueShards);
+        for (int i = 0; i < overdueShards && claimed.size() < share; i++) {
+            int shard = (first + i) % overdueShards;
+            String lease = shardLease(shard);
+            if (!held.contains(lease) && leaseService.tryAcquire(lease, now)) {
+                claimed.add(shard);
+            }
+        }
+
+        List<LateLoansReport> reports = new ArrayList<>();
+        for (int shard : claimed) {
+            reports.add(sweepOverdueLoans(now.toLocalDate(), shard, overdueShards));
+        }
+        return reports;
+    }
+
+    private String shardLease(int shard) {
+        return SHARD_LEASE + shard + "-of-" + overdueShards;
+    }
+
+    /**
+     * Enqueues the loans of one shard whose due date was crossed since the last sweep. Each loan is marked as
+     * notified with its chunk, and the watermark only moves to {@code today} once the window has been drained,
+     * so a run cut short by {@code max-per-run} is picked up by the next one.
+     */
+    public LateLoansReport sweepOverdueLoans(LocalDate today, int shard, int shards) {
+        LocalDate watermark = loanService.getOverdueWatermark(shard, shards);
+        long loans = 0;
+        long enqueued = 0;
+        int chunks = 0;
+        long readNanos = 0;
+        long enqueueNanos = 0;
+        int remaining = overdueMaxPerRun;
+        boolean drained = false;
+
+        while (remaining > 0) {
+            int limit = Math.min(chunkSize, remaining);
+            long start = System.nanoTime();
+            List<LateLoan> chunk = loanService.getNewlyOverdueLoans(watermark, today, shard, shards, limit);
+            readNanos += System.nanoTime() - start;
+
+            if (!chunk.isEmpty()) {
+                start = System.nanoTime();
+                enqueued += notificationService.enqueue(chunk, today);
+                enqueueNanos += System.nanoTime() - start;
+
+                loans += chunk.size();
+                remaining -= chunk.size();
+                chunks++;
+            }
+            if (chunk.size() < limit) {
+                drained = true;
+                break;
+            }
+        }
+
+        if (drained && today.isAfter(watermark)) {
+            loanService.advanceOverdueWatermark(shard, shards, today);
+            watermark = today;
+        }
+
+        return LateLoansReport.builder()
+                .shard(shard)
+                .loans(loans)
+                .enqueued(enqueued)
+                .chunks(chunks)
+                .readMillis(TimeUnit.NANOSECONDS.toMillis(readNanos))
+                .enqueueMillis(TimeUnit.NANOSECONDS.toMillis(enqueueNanos))
+                .watermark(watermark)
+                .build();
+    }
+
+    public int dispatchPendingNotifications() {
+        int sent = 0;
+        int remaining = maxPerRun;
+        while (remaining > 0) {
+            int limit = Math.min(chunkSize, remaining);
+            int dispatched = notificationService.dispatchPending(message, limit);
+            sent += dispatched;
+            remaining -= limit;
+            if (dispatched < limit) {
+                break;
+            }
+        }
+        return sent;
     }
 
 }
@@ -0,0 +1,220 @@
+package com.maycon.libraryapi.api.service.impl;
+
+import com.maycon.libraryapi.api.model.entity.Book;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+@Component
+public class BookSearchIndex {
+
+    private static final float TITLE_WEIGHT = 2f;
+    private static final float AUTHOR_WEIGHT = 1f;
+    private static final float ISBN_WEIGHT = 3f;
+    private static final float PREFIX_MATCH = 0.6f;
+    private static final float FUZZY_MATCH = 0.4f;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private final ConcurrentSkipListMap<String, Map<Long, Float>> postings = new ConcurrentSkipListMap<>();
+    private final Map<Long, Set<String>> termsByBook = new ConcurrentHashMap<>();
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+    private volatile LocalDateTime changedAt;
+
+    public synchronized void index(Book book) {
+        remove(book.getId());
+
+        Map<String, Float> terms = new HashMap<>();
+        addTerms(terms, book.getTitle(), TITLE_WEIGHT);
+        addTerms(terms, book.getAuthor(), AUTHOR_WEIGHT);
+        addTerms(terms, book.getIsbn(), ISBN_WEIGHT);
+
+        terms.forEach((term, weight) ->
+                postings.computeIfAbsent(term, key -> new ConcurrentHashMap<>()).put(book.getId(), weight));
+        termsByBook.put(book.getId(), terms.keySet());
+        if (book.getVersion() != null) {
+            versions.put(book.getId(), book.getVersion());
+        }
+    }
+
+    public synchronized void remove(Long id) {
+        versions.remove(id);
+        Set<String> terms = termsByBook.remove(id);
+        if (terms == null) {
+            return;
+        }
+        terms.forEach(term -> postings.computeIfPresent(term, (key, books) -> {
+            books.remove(id);
+            return books.isEmpty() ? null : books;
+        }));
+    }
+
+    /**
+     * Whether this exact version of the book is already in the index, so a refresh re-reading its lag window
+     * does not tokenize unchanged books again.
+     */
+    public boolean isIndexed(Book book) {
+        return book.getVersion() != null && book.getVersion().equals(versions.get(book.getId()));
+    }
+
+    /**
+     * The last change, by updated_at, that a refresh read from the database.
+     */
+    public LocalDateTime changedAt() {
+        return changedAt;
+    }
+
+    public synchronized void advanceTo(LocalDateTime changedAt) {
+        if (this.changedAt == null || changedAt.isAfter(this.changedAt)) {
+            this.changedAt = changedAt;
+        }
+    }
+
+    public int size() {
+        return termsByBook.size();
+    }
+
+    public List<Long> search(String query, int limit) {
+        List<List<TermMatch>> tokens = new ArrayList<>();
+        for (String token : tokenize(query)) {
+            List<TermMatch> matches = match(token);
+            if (matches.isEmpty()) {
+                return Collections.emptyList();
+            }
+            tokens.add(matches);
+        }
+        if (tokens.isEmpty()) {
+            return Collections.emptyList();
+        }
+        tokens.sort(Comparator.comparingInt(BookSearchIndex::postingsSize));
+
+        Map<Long, Float> scores = new HashMap<>();
+        for (TermMatch match : tokens.get(0)) {
+            match.books.forEach((id, weight) -> scores.merge(id, weight * match.quality, Math::max));
+        }
+        for (List<TermMatch> matches : tokens.subList(1, tokens.size())) {
+            scores.entrySet().removeIf(score -> {
+                float best = bestScore(matches, score.getKey());
+                score.setValue(score.getValue() + best);
+                return best == 0f;
+            });
+        }
+
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Float>comparingByValue().reversed().thenComparing(Map.Entry.<Long, Float>comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    private List<TermMatch> match(String token) {
+        List<TermMatch> matches = new ArrayList<>();
+        Map<Long, Float> exact = postings.get(token);
+        if (exact != null) {
+            matches.add(new TermMatch(exact, 1f));
+        }
+
+        int expansions = 0;
+        for (Map.Entry<String, Map<Long, Float>> term : postings.tailMap(token, false).entrySet()) {
+            if (!term.getKey().startsWith(token) || expansions++ == MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            matches.add(new TermMatch(term.getValue(), PREFIX_MATCH));
+        }
+
+        if (matches.isEmpty() && token.length() >= MIN_FUZZY_LENGTH && !isNumeric(token)) {
+            String first = token.substring(0, 1);
+            for (Map.Entry<String, Map<Long, Float>> term :
+                    postings.subMap(first, true, first + Character.MAX_VALUE, true).entrySet()) {
+                if (withinOneEdit(token, term.getKey())) {
+                    matches.add(new TermMatch(term.getValue(), FUZZY_MATCH));
+                }
+            }
+        }
+        return matches;
+    }
+
+    private static float bestScore(List<TermMatch> matches, Long id) {
+        float best = 0f;
+        for (TermMatch match : matches) {
+            Float weight = match.books.get(id);
+            if (weight != null) {
+                best = Math.max(best, weight * match.quality);
+            }
+        }
+        return best;
+    }
+
+    private static int postingsSize(List<TermMatch> matches) {
+        return matches.stream().mapToInt(match -> match.books.size()).sum();
+    }
+
+    private static void addTerms(Map<String, Float> terms, String text, float weight) {
+        for (String term : tokenize(text)) {
+            terms.merge(term, weight, Math::max);
+        }
+    }
+
+    static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null) {
+            return tokens;
+        }
+        String normalized = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase();
+        for (String token : SEPARATOR.split(normalized)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    static boolean withinOneEdit(String a, String b) {
+        if (Math.abs(a.length() - b.length()) > 1) {
+            return false;
+        }
+        String shorter = a.length() <= b.length() ? a : b;
+        String longer = shorter == a ? b : a;
+        int i = 0;
+        while (i < shorter.length() && shorter.charAt(i) == longer.charAt(i)) {
+            i++;
+        }
+        int length = shorter.length();
+        if (length == longer.length()) {
+            if (shorter.regionMatches(i + 1, longer, i + 1, length - i - 1)) {
+                return true;
+            }
+            return i + 1 < length
+                    && shorter.charAt(i) == longer.charAt(i + 1)
+                    && shorter.charAt(i + 1) == longer.charAt(i)
+                    && shorter.regionMatches(i + 2, longer, i + 2, length - i - 2);
+        }
+        return shorter.regionMatches(i, longer, i + 1, length - i);
+    }
+
+    private static boolean isNumeric(String token) {
+        return token.chars().allMatch(Character::isDigit);
+    }
+
+    @RequiredArgsConstructor
+    private static final class TermMatch {
+        private final Map<Long, Float> books;
+        private final float quality;
+    }
+}
@@ -1,31 +1,93 @@
 package com.maycon.libraryapi.api.service.impl;
 
+import com.maycon.libraryapi.api.DTO.BookDTO;
+import com.maycon.libraryapi.api.DTO.BookImportRejectionDTO;
+import com.maycon.libraryapi.api.DTO.BookImportResultDTO;
 import com.maycon.libraryapi.api.model.entity.Book;
+import com.maycon.libraryapi.api.model.projection.BookLookup;
+import com.maycon.libraryapi.api.model.projection.BookView;
 import com.maycon.libraryapi.api.model.repository.BookRepository;
 import com.maycon.libraryapi.api.service.BookService;
+import com.maycon.libraryapi.config.CacheConfig;
 import com.maycon.libraryapi.exception.BusinessException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.repository.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class BookServiceImpl implements BookService {
+    private static final String ISBN_CONSTRAINT = "UX_BOOK_ISBN";
+    private static final LocalDateTime INDEX_EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
     private BookRepository repository;
+    private BookSearchIndex searchIndex;
+
+    @Value("${application.books.import.chunk-size:1000}")
+    private int importChunkSize = 1000;
+
+    @Value("${application.books.search.chunk-size:1000}")
+    private int searchChunkSize = 1000;
+
+    @Value("${application.books.search.lag-millis:600000}")
+    private long searchLagMillis = 600000;
+
+    @Value("${application.books.lookup.chunk-size:500}")
+    private int lookupChunkSize = 500;
 
-    public BookServiceImpl(BookRepository repository) {
+    public BookServiceImpl(BookRepository repository, BookSearchIndex searchIndex) {
         this.repository = repository;
+        this.searchIndex = searchIndex;
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.BOOKS_BY_ISBN, key = "#book.isbn"),
+            @CacheEvict(cacheNames = CacheConfig.ISBN_EXISTS, key = "#book.isbn")
+    })
     public Book save(Book book) {
         if (repository.existsByIsbn(book.getIsbn())) {
             throw new BusinessException("Isbn já cadastrado.");
         }
-        return repository.save(book);
+        Book saved;
+        try {
+            saved = repository.save(book);
+        } catch (DataIntegrityViolationException e) {
+            throw translateIsbnViolation(e);
+        }
+        afterCommit(() -> searchIndex.index(saved));
+        return saved;
     }
 
     @Override
@@ -34,36 +96,290 @@ public class BookServiceImpl implements BookService {
     }
 
     @Override
+    public Optional<Long> getVersion(Long id) {
+        return repository.findVersionById(id);
+    }
+
+    @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.BOOKS_BY_ISBN, key = "#book.isbn"),
+            @CacheEvict(cacheNames = CacheConfig.ISBN_EXISTS, key = "#book.isbn")
+    })
     public void delete(Book book) {
         if (book == null || book.getId() == null) {
             throw new IllegalArgumentException("Book id cant be null");
         }
         this.repository.delete(book);
-
+        afterCommit(() -> searchIndex.remove(book.getId()));
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.BOOKS_BY_ISBN, key = "#book.isbn"),
+            @CacheEvict(cacheNames = CacheConfig.ISBN_EXISTS, key = "#book.isbn")
+    })
     public Book update(Book book) {
         if (book == null || book.getId() == null) {
             throw new IllegalArgumentException("Book id cant be null");
         }
-        return this.repository.save(book);
+        Book updated;
+        try {
+            updated = this.repository.save(book);
+        } catch (DataIntegrityViolationException e) {
+            throw translateIsbnViolation(e);
+        }
+        afterCommit(() -> searchIndex.index(updated));
+        return updated;
+    }
+
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.BOOKS_BY_ISBN, key = "#result.isbn", condition = "#result != null")
+    public Optional<Book> updateDetails(Long id, String title, String author, Collection<Long> versions) {
+        int updated = versions == null
+                ? repository.updateDetails(id, title, author)
+                : versions.isEmpty() ? 0 : repository.updateDetails(id, title, author, versions);
+        if (updated == 0) {
+            checkStale(id);
+            return Optional.empty();
+        }
+        Optional<Book> book = repository.findById(id);
+        book.ifPresent(updated -> afterCommit(() -> searchIndex.index(updated)));
+        return book;
+    }
+
+    /**
+     * The isbn of the deleted row is not read back, so the isbn keyed caches are dropped as a whole.
+     */
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.BOOKS_BY_ISBN, CacheConfig.ISBN_EXISTS}, allEntries = true,
+            condition = "#result")
+    public boolean deleteById(Long id, Collection<Long> versions) {
+        int deleted = versions == null
+                ? repository.deleteBookById(id)
+                : versions.isEmpty() ? 0 : repository.deleteBookByIdAndVersionIn(id, versions);
+        if (deleted == 0) {
+            checkStale(id);
+            return false;
+        }
+        afterCommit(() -> searchIndex.remove(id));
+        return true;
+    }
+
+    /**
+     * The search index is shared by every request on this node, so it only sees changes once they are
+     * committed; a rolled back write never shows up in the search results.
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void checkStale(Long id) {
+        if (repository.existsById(id)) {
+            throw new OptimisticLockingFailureException("Book " + id + " is at another version.");
+        }
     }
 
     @Override
     public Page<Book> find(Book filter, Pageable pageRequest) {
-        Example<Book> example = Example.of(filter,
+        return repository.findAll(example(filter), pageRequest);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<BookView> findViews(Book filter, Pageable pageRequest) {
+        Example<Book> example = example(filter);
+        List<BookView> books = repository.findViews(example, pageRequest);
+        return PageableExecutionUtils.getPage(books, pageRequest, () -> repository.count(example));
+    }
+
+    @Override
+    public Slice<Book> findAfter(Book filter, Long lastId, int limit) {
+        List<Book> books = repository.findAfter(example(filter), lastId == null ? 0L : lastId, limit + 1);
+        boolean hasNext = books.size() > limit;
+        return new SliceImpl<>(hasNext ? books.subList(0, limit) : books, PageRequest.of(0, limit), hasNext);
+    }
+
+    @Override
+    public Slice<Book> findSlice(Book filter, Pageable pageRequest) {
+        return repository.findSlice(example(filter), pageRequest);
+    }
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.BOOK_COUNTS, key = "{#filter.id, #filter.title, #filter.author, #filter.isbn}")
+    public long estimateCount(Book filter) {
+        return repository.count(example(filter));
+    }
+
+    private Example<Book> example(Book filter) {
+        return Example.of(filter,
                 ExampleMatcher
                         .matching()
                         .withIgnoreCase()
                         .withIgnoreNullValues()
                         .withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING)
         );
-        return repository.findAll(example, pageRequest);
     }
 
     @Override
     public Optional<Book> getBookByIsbn(String isbn) {
-        return repository.findByIsbn(isbn);
+        return repository.findIdByIsbn(isbn).flatMap(repository::findById);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookLookup> lookup(Collection<String> isbns) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(isbns));
+        List<BookLookup> books = new ArrayList<>(distinct.size());
+        for (int from = 0; from < distinct.size(); from += lookupChunkSize) {
+            books.addAll(repository.findLookupsByIsbnIn(distinct.subList(from, Math.min(from + lookupChunkSize, distinct.size()))));
+        }
+        return books;
+    }
+
+    @Override
+    @CacheEvict(cacheNames = {CacheConfig.BOOKS_BY_ISBN, CacheConfig.ISBN_EXISTS}, allEntries = true)
+    public BookImportResultDTO importBooks(Iterator<BookDTO> rows) {
+        BookImportResultDTO result = BookImportResultDTO.builder().build();
+        Map<String, Long> rowsByIsbn = new LinkedHashMap<>();
+        Map<String, Book> booksByIsbn = new LinkedHashMap<>();
+        long row = 0;
+
+        while (rows.hasNext()) {
+            BookDTO dto = rows.next();
+            row++;
+            if (isBlank(dto.getTitle()) || isBlank(dto.getAuthor()) || isBlank(dto.getIsbn())) {
+                reject(result, row, dto.getIsbn(), "Title, author and isbn are required.");
+                continue;
+            }
+            if (rowsByIsbn.containsKey(dto.getIsbn())) {
+                reject(result, row, dto.getIsbn(), "Isbn duplicated in file.");
+                continue;
+            }
+            rowsByIsbn.put(dto.getIsbn(), row);
+            booksByIsbn.put(dto.getIsbn(), Book.builder()
+                    .title(dto.getTitle())
+                    .author(dto.getAuthor())
+                    .isbn(dto.getIsbn())
+                    .build());
+
+            if (booksByIsbn.size() == importChunkSize) {
+                importChunk(result, rowsByIsbn, booksByIsbn);
+            }
+        }
+        importChunk(result, rowsByIsbn, booksByIsbn);
+        reindex();
+        return result;
+    }
+
+    @Override
+    public List<Book> search(String query, int limit) {
+        List<Long> ids = searchIndex.search(query, limit);
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, Book> books = repository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        ids.stream().filter(id -> !books.containsKey(id)).forEach(searchIndex::remove);
+        return ids.stream()
+                .map(books::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Reads the books changed since the last refresh, so inserts and edits made on any node reach this node's
+     * index. Each refresh starts {@code lag-millis} before the last change it saw: updated_at is stamped when the
+     * row is written, and a transaction that wrote earlier may commit after a later change was already read.
+     */
+    @Override
+    public int reindex() {
+        LocalDateTime changedAt = searchIndex.changedAt() == null
+                ? INDEX_EPOCH : searchIndex.changedAt().minus(searchLagMillis, ChronoUnit.MILLIS);
+        long lastId = 0;
+        int indexed = 0;
+        List<Book> chunk;
+        do {
+            chunk = repository.findChangedAfter(changedAt, lastId, PageRequest.of(0, searchChunkSize));
+            for (Book book : chunk) {
+                if (!searchIndex.isIndexed(book)) {
+                    searchIndex.index(book);
+                    indexed++;
+                }
+            }
+            if (!chunk.isEmpty()) {
+                Book last = chunk.get(chunk.size() - 1);
+                changedAt = last.getUpdatedAt();
+                lastId = last.getId();
+                searchIndex.advanceTo(changedAt);
+            }
+        } while (chunk.size() == searchChunkSize);
+        return indexed;
+    }
+
+    private void importChunk(BookImportResultDTO result, Map<String, Long> rowsByIsbn, Map<String, Book> booksByIsbn) {
+        if (booksByIsbn.isEmpty()) {
+            return;
+        }
+        Set<String> existingIsbns = repository.findExistingIsbns(booksByIsbn.keySet());
+
+        List<Book> books = new ArrayList<>();
+        booksByIsbn.forEach((isbn, book) -> {
+            if (existingIsbns.contains(isbn)) {
+                reject(result, rowsByIsbn.get(isbn), isbn, "Isbn já cadastrado.");
+            } else {
+                books.add(book);
+            }
+        });
+
+        if (!books.isEmpty()) {
+            insertChunk(result, rowsByIsbn, books);
+        }
+
+        rowsByIsbn.clear();
+        booksByIsbn.clear();
+    }
+
+    private void insertChunk(BookImportResultDTO result, Map<String, Long> rowsByIsbn, List<Book> books) {
+        try {
+            repository.insertAll(books);
+            result.setAccepted(result.getAccepted() + books.size());
+        } catch (DuplicateKeyException e) {
+            for (Book book : books) {
+                try {
+                    repository.insertAll(Collections.singletonList(book));
+                    result.setAccepted(result.getAccepted() + 1);
+                } catch (DuplicateKeyException duplicated) {
+                    reject(result, rowsByIsbn.get(book.getIsbn()), book.getIsbn(), "Isbn já cadastrado.");
+                }
+            }
+        }
+    }
+
+    private RuntimeException translateIsbnViolation(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        if (message != null && message.toUpperCase().contains(ISBN_CONSTRAINT)) {
+            return new BusinessException("Isbn já cadastrado.");
+        }
+        return e;
+    }
+
+    private void reject(BookImportResultDTO result, long row, String isbn, String reason) {
+        result.setRejected(result.getRejected() + 1);
+        result.getRejections().add(BookImportRejectionDTO.builder().row(row).isbn(isbn).reason(reason).build());
+    }
+
+    private boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
     }
 }
@@ -1,33 +1,186 @@
 package com.maycon.libraryapi.api.service.impl;
 
 import com.maycon.libraryapi.api.service.EmailService;
+import com.maycon.libraryapi.api.service.MailBatchResult;
+import com.maycon.libraryapi.api.service.MailDispatchReport;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class EmailServiceImpl implements EmailService {
 
+    private static final String SUBJECT = "Livro com empréstimo atrasado.";
+
     @Value("${application.mail.default-remetent}")
     private String remetent;
 
+    @Value("${application.mail.dispatch.batch-size:50}")
+    private int batchSize;
+
+    @Value("${application.mail.dispatch.workers:4}")
+    private int workers;
+
+    @Value("${application.mail.dispatch.rate-per-second:20}")
+    private double ratePerSecond;
+
+    @Value("${application.mail.dispatch.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${application.mail.dispatch.backoff-millis:500}")
+    private long backoffMillis;
+
     public final JavaMailSender javaMailSender;
 
+    private ExecutorService executor;
+    private MailRateLimiter rateLimiter;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threads = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "mail-dispatch-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        rateLimiter = new MailRateLimiter(ratePerSecond);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
     @Override
-    public void sendMails(String message, List<String> mailsList) {
-        String[] emails = mailsList.toArray(new String[mailsList.size()]);
+    public MailDispatchReport sendMails(String message, List<String> mailsList) {
+        long start = System.nanoTime();
 
-        SimpleMailMessage mailMessage = new SimpleMailMessage();
-        mailMessage.setFrom(remetent);
-        mailMessage.setSubject("Livro com empréstimo atrasado.");
-        mailMessage.setText(message);
-        mailMessage.setTo(emails);
+        List<Future<MailBatchResult>> futures = new ArrayList<>();
+        for (int from = 0, batch = 1; from < mailsList.size(); from += batchSize, batch++) {
+            List<String> recipients = mailsList.subList(from, Math.min(from + batchSize, mailsList.size()));
+            int number = batch;
+            int offset = from;
+            futures.add(executor.submit(() -> sendBatch(number, message, recipients, offset)));
+        }
+
+        List<MailBatchResult> batches = new ArrayList<>();
+        List<String> failedRecipients = new ArrayList<>();
+        List<Integer> failedIndexes = new ArrayList<>();
+        int sent = 0;
+        for (Future<MailBatchResult> future : futures) {
+            MailBatchResult result = await(future);
+            batches.add(result);
+            sent += result.getSent();
+            failedRecipients.addAll(result.getFailedRecipients());
+            failedIndexes.addAll(result.getFailedIndexes());
+        }
+
+        return MailDispatchReport.builder()
+                .sent(sent)
+                .failed(failedRecipients.size())
+                .latencyMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+                .failedRecipients(failedRecipients)
+                .failedIndexes(failedIndexes)
+                .batches(batches)
+                .build();
+    }
+
+    private MailBatchResult sendBatch(int batch, String message, List<String> recipients, int offset)
+            throws InterruptedException {
+        long start = System.nanoTime();
+        List<Integer> failedIndexes = new ArrayList<>();
+
+        Map<MimeMessage, Integer> pending = new IdentityHashMap<>();
+        for (int i = 0; i < recipients.size(); i++) {
+            String recipient = recipients.get(i);
+            try {
+                pending.put(createMessage(message, recipient), offset + i);
+            } catch (MessagingException | IllegalArgumentException e) {
+                log.warn("Invalid mail to {}: {}", recipient, e.getMessage());
+                failedIndexes.add(offset + i);
+            }
+        }
+
+        rateLimiter.acquire(pending.size());
+
+        int attempts = 0;
+        while (!pending.isEmpty() && attempts < maxAttempts) {
+            if (attempts > 0) {
+                TimeUnit.MILLISECONDS.sleep(backoffMillis << (attempts - 1));
+            }
+            attempts++;
+            try {
+                javaMailSender.send(pending.keySet().toArray(new MimeMessage[0]));
+                pending.clear();
+            } catch (MailSendException e) {
+                log.warn("Mail batch {} attempt {} failed for {} messages", batch, attempts, e.getFailedMessages().size());
+                if (e.getFailedMessages().isEmpty()) {
+                    continue;
+                }
+                pending.keySet().retainAll(e.getFailedMessages().keySet());
+            } catch (MailException e) {
+                log.warn("Mail batch {} attempt {} failed: {}", batch, attempts, e.getMessage());
+            }
+        }
+        failedIndexes.addAll(pending.values());
+        Collections.sort(failedIndexes);
+        List<String> failedRecipients = failedIndexes.stream()
+                .map(index -> recipients.get(index - offset))
+                .collect(Collectors.toList());
+
+        return MailBatchResult.builder()
+                .batch(batch)
+                .recipients(recipients.size())
+                .sent(recipients.size() - failedIndexes.size())
+                .failedRecipients(failedRecipients)
+                .failedIndexes(failedIndexes)
+                .attempts(attempts)
+                .latencyMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+                .build();
+    }
+
+    private MimeMessage createMessage(String message, String recipient) throws MessagingException {
+        MimeMessage mimeMessage = javaMailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, "UTF-8");
+        helper.setFrom(remetent);
+        helper.setTo(recipient);
+        helper.setSubject(SUBJECT);
+        helper.setText(message);
+        return mimeMessage;
+    }
 
-        javaMailSender.send(mailMessage);
+    private MailBatchResult await(Future<MailBatchResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MailSendException("Mail dispatch interrupted", e);
+        } catch (ExecutionException e) {
+            throw new MailSendException("Mail dispatch failed", e.getCause());
+        }
     }
 }
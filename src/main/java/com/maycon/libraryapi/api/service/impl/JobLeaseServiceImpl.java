@@ -0,0 +1,82 @@
+package com.maycon.libraryapi.api.service.impl;
+
+import com.maycon.libraryapi.api.model.repository.JobLeaseRepository;
+import com.maycon.libraryapi.api.service.JobLeaseService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Leases kept in the job_lease table, so only one node at a time runs a given job. A node that dies keeps its
+ * lease only until it expires; the lease must be longer than a run and than the clock skew between nodes.
+ */
+@Service
+public class JobLeaseServiceImpl implements JobLeaseService {
+    private JobLeaseRepository repository;
+
+    @Value("${application.jobs.node-id:#{T(java.lang.management.ManagementFactory).getRuntimeMXBean().getName()}}")
+    private String nodeId = ManagementFactory.getRuntimeMXBean().getName();
+
+    @Value("${application.jobs.lease-millis:600000}")
+    private long leaseMillis = 600000;
+
+    public JobLeaseServiceImpl(JobLeaseRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public boolean tryAcquire(String job) {
+        return tryAcquire(job, LocalDateTime.now());
+    }
+
+    @Override
+    public boolean tryAcquire(String job, LocalDateTime now) {
+        LocalDateTime until = now.plus(leaseMillis, ChronoUnit.MILLIS);
+        if (repository.acquire(job, nodeId, now, until) > 0) {
+            return true;
+        }
+        try {
+            if (repository.insertIfAbsent(job) == 0) {
+                return false;
+            }
+        } catch (DataIntegrityViolationException e) {
+            // another node created the lease first; fall through and compete for it
+        }
+        return repository.acquire(job, nodeId, now, until) > 0;
+    }
+
+    @Override
+    public void release(String job) {
+        repository.release(job, nodeId, LocalDateTime.now());
+    }
+
+    @Override
+    public List<String> getHeld(String prefix, LocalDateTime now) {
+        return repository.findHeld(nodeId, prefix, now);
+    }
+
+    @Override
+    public long countLive(String prefix, LocalDateTime now) {
+        return repository.countLive(prefix, now);
+    }
+
+    /**
+     * Hands every lease back on a clean shutdown, so the other nodes do not wait for them to expire.
+     */
+    @PreDestroy
+    public void releaseAll() {
+        repository.releaseAll(nodeId, LocalDateTime.now());
+    }
+}
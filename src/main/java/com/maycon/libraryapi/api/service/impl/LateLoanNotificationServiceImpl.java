@@ -0,0 +1,96 @@
+package com.maycon.libraryapi.api.service.impl;
+
+import com.maycon.libraryapi.api.model.entity.LateLoanNotification;
+import com.maycon.libraryapi.api.model.projection.LateLoan;
+import com.maycon.libraryapi.api.model.repository.LateLoanNotificationRepository;
+import com.maycon.libraryapi.api.model.repository.LoanRepository;
+import com.maycon.libraryapi.api.service.EmailService;
+import com.maycon.libraryapi.api.service.LateLoanNotificationService;
+import com.maycon.libraryapi.api.service.MailDispatchReport;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+public class LateLoanNotificationServiceImpl implements LateLoanNotificationService {
+    private LateLoanNotificationRepository repository;
+    private LoanRepository loanRepository;
+    private EmailService emailService;
+
+    @Value("${application.mail.outbox.max-attempts:5}")
+    private int maxAttempts = 5;
+
+    public LateLoanNotificationServiceImpl(LateLoanNotificationRepository repository, LoanRepository loanRepository,
+                                           EmailService emailService) {
+        this.repository = repository;
+        this.loanRepository = loanRepository;
+        this.emailService = emailService;
+    }
+
+    @Override
+    @Transactional
+    public int enqueue(List<LateLoan> lateLoans, LocalDate date) {
+        if (lateLoans.isEmpty()) {
+            return 0;
+        }
+        Set<String> keys = lateLoans.stream()
+                .map(lateLoan -> idempotencyKey(lateLoan.getId(), date))
+                .collect(Collectors.toSet());
+        Set<String> existingKeys = new HashSet<>(repository.findExistingKeys(keys));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<LateLoanNotification> notifications = lateLoans.stream()
+                .filter(lateLoan -> existingKeys.add(idempotencyKey(lateLoan.getId(), date)))
+                .map(lateLoan -> LateLoanNotification.builder()
+                        .idempotencyKey(idempotencyKey(lateLoan.getId(), date))
+                        .loanId(lateLoan.getId())
+                        .customerEmail(lateLoan.getCustomerEmail())
+                        .createdAt(now)
+                        .build())
+                .collect(Collectors.toList());
+
+        repository.saveAll(notifications);
+        loanRepository.markOverdueNotified(lateLoans.stream().map(LateLoan::getId).collect(Collectors.toList()), now);
+        return notifications.size();
+    }
+
+    @Override
+    public int dispatchPending(String message, int limit) {
+        List<LateLoanNotification> pending = repository.findPending(maxAttempts, PageRequest.of(0, limit));
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        List<String> mailsList = pending.stream().map(LateLoanNotification::getCustomerEmail)
+                .collect(Collectors.toList());
+        MailDispatchReport report = emailService.sendMails(message, mailsList);
+
+        Set<Integer> failedIndexes = new HashSet<>(report.getFailedIndexes());
+        List<Long> sentIds = new ArrayList<>();
+        List<Long> failedIds = new ArrayList<>();
+        for (int i = 0; i < pending.size(); i++) {
+            (failedIndexes.contains(i) ? failedIds : sentIds).add(pending.get(i).getId());
+        }
+
+        if (!sentIds.isEmpty()) {
+            repository.markSent(sentIds, LocalDateTime.now());
+        }
+        if (!failedIds.isEmpty()) {
+            repository.markFailed(failedIds);
+        }
+        return sentIds.size();
+    }
+
+    private String idempotencyKey(Long loanId, LocalDate date) {
+        return loanId + ":" + date;
+    }
+}
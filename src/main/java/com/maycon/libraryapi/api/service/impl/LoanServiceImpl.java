@@ -2,32 +2,80 @@ package com.maycon.libraryapi.api.service.impl;
 
 import com.maycon.libraryapi.api.DTO.LoanFilterDTO;
 import com.maycon.libraryapi.api.model.entity.Book;
+import com.maycon.libraryapi.api.model.entity.JobWatermark;
 import com.maycon.libraryapi.api.model.entity.Loan;
+import com.maycon.libraryapi.api.model.projection.BookAvailability;
+import com.maycon.libraryapi.api.model.projection.LateLoan;
+import com.maycon.libraryapi.api.model.projection.LoanView;
 import com.maycon.libraryapi.api.service.LoanService;
 import com.maycon.libraryapi.exception.BusinessException;
+import com.maycon.libraryapi.api.model.repository.BookLoanStatsRepository;
+import com.maycon.libraryapi.api.model.repository.JobWatermarkRepository;
 import com.maycon.libraryapi.api.model.repository.LoanRepository;
+import com.maycon.libraryapi.api.model.repository.LoanSpecifications;
+import com.maycon.libraryapi.config.CacheConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.repository.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
 import java.time.LocalDate;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.stream.Collectors;
 
 @Service
 public class LoanServiceImpl implements LoanService {
+    private static final String OPEN_LOAN_CONSTRAINT = "UX_LOAN_OPEN_BOOK";
+    private static final String OVERDUE_WATERMARK = "overdue-loans";
+
     private LoanRepository repository;
+    private BookLoanStatsRepository statsRepository;
+    private JobWatermarkRepository watermarkRepository;
+
+    @Value("${application.loans.loan-days:4}")
+    private int loanDays = 4;
 
-    public LoanServiceImpl(LoanRepository repository) {
+    public LoanServiceImpl(LoanRepository repository, BookLoanStatsRepository statsRepository,
+                           JobWatermarkRepository watermarkRepository) {
         this.repository = repository;
+        this.statsRepository = statsRepository;
+        this.watermarkRepository = watermarkRepository;
     }
 
     @Override
+    @Transactional
     public Loan save(Loan loan) {
-        if(repository.existsByBookAndNotReturned(loan.getBook())){
-            throw new BusinessException("Book already loaned");
+        if (loan.getDueDate() == null && loan.getLoanDate() != null) {
+            loan.setDueDate(loan.getLoanDate().plusDays(loanDays));
+        }
+        Loan saved;
+        try {
+            saved = repository.save(loan);
+        } catch (DataIntegrityViolationException e) {
+            throw translateOpenLoanViolation(e);
         }
-        return repository.save(loan);
+        Long bookId = saved.getBook().getId();
+        LocalDate loanDate = saved.getLoanDate();
+        recordStats(() -> statsRepository.recordLoan(bookId, loanDate),
+                () -> statsRepository.lockBook(bookId),
+                () -> statsRepository.rebuild(bookId));
+        return saved;
     }
 
     @Override
@@ -36,13 +84,104 @@ public class LoanServiceImpl implements LoanService {
     }
 
     @Override
+    @Transactional
     public Loan update(Loan loan) {
-        return repository.save(loan);
+        Loan updated;
+        try {
+            updated = repository.save(loan);
+            repository.flush();
+        } catch (DataIntegrityViolationException e) {
+            throw translateOpenLoanViolation(e);
+        }
+        Long bookId = updated.getBook().getId();
+        recordStats(() -> statsRepository.recordOpen(bookId),
+                () -> statsRepository.lockBook(bookId),
+                () -> statsRepository.rebuild(bookId));
+        return updated;
+    }
+
+    @Override
+    @Transactional
+    public boolean markReturned(Long id, Boolean returned) {
+        int updated;
+        try {
+            updated = repository.markReturned(id, returned);
+        } catch (DataIntegrityViolationException e) {
+            throw translateOpenLoanViolation(e);
+        }
+        if (updated == 0) {
+            return false;
+        }
+        recordStats(() -> statsRepository.recordOpenByLoan(id),
+                () -> statsRepository.lockBookOfLoan(id),
+                () -> statsRepository.rebuildByLoan(id));
+        return true;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<Loan> find(LoanFilterDTO filter, Pageable pageable) {
-        return repository.findByBookIsbnOrCustomer(filter.getIsbn(), filter.getCustomer(), pageable);
+        List<Loan> loans = findSlice(filter, pageable).getContent();
+        return PageableExecutionUtils.getPage(loans, pageable, () -> count(filter));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<LoanView> findViews(LoanFilterDTO filter, Pageable pageable) {
+        List<LoanView> views;
+        if (isUnion(filter, pageable)) {
+            Specification<Loan> narrowing = narrowing(filter);
+            Pageable window = window(pageable);
+            views = union(
+                    repository.findViews(LoanSpecifications.bookIsbn(filter.getIsbn()).and(narrowing), window),
+                    repository.findViews(LoanSpecifications.customer(filter.getCustomer()).and(narrowing), window),
+                    LoanView::getId, idOrder(pageable), pageable.getOffset(), pageable.getPageSize());
+        } else {
+            views = repository.findViews(matching(filter), pageable);
+        }
+        return PageableExecutionUtils.getPage(views, pageable, () -> count(filter));
+    }
+
+    /**
+     * When both isbn and customer are given each side is read through its own index and the two id-ordered
+     * chunks are merged, instead of one OR that most databases answer with a scan.
+     */
+    @Override
+    public Slice<Loan> findAfter(LoanFilterDTO filter, Long lastId, int limit) {
+        long after = lastId == null ? 0L : lastId;
+        List<Loan> loans;
+        if (StringUtils.hasText(filter.getIsbn()) && StringUtils.hasText(filter.getCustomer())) {
+            Specification<Loan> narrowing = narrowing(filter);
+            loans = union(
+                    repository.findAfter(LoanSpecifications.bookIsbn(filter.getIsbn()).and(narrowing), after, limit + 1),
+                    repository.findAfter(LoanSpecifications.customer(filter.getCustomer()).and(narrowing), after, limit + 1),
+                    Loan::getId, Comparator.naturalOrder(), 0, limit + 1);
+        } else {
+            loans = repository.findAfter(matching(filter), after, limit + 1);
+        }
+        boolean hasNext = loans.size() > limit;
+        return new SliceImpl<>(hasNext ? loans.subList(0, limit) : loans, PageRequest.of(0, limit), hasNext);
+    }
+
+    @Override
+    public Slice<Loan> findSlice(LoanFilterDTO filter, Pageable pageable) {
+        if (!isUnion(filter, pageable)) {
+            return repository.findSlice(matching(filter), pageable);
+        }
+        Specification<Loan> narrowing = narrowing(filter);
+        Pageable window = window(pageable);
+        List<Loan> loans = union(
+                repository.findSlice(LoanSpecifications.bookIsbn(filter.getIsbn()).and(narrowing), window).getContent(),
+                repository.findSlice(LoanSpecifications.customer(filter.getCustomer()).and(narrowing), window).getContent(),
+                Loan::getId, idOrder(pageable), pageable.getOffset(), pageable.getPageSize() + 1);
+        boolean hasNext = loans.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? loans.subList(0, pageable.getPageSize()) : loans, pageable, hasNext);
+    }
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.LOAN_COUNTS, key = "{'filter', #filter}")
+    public long estimateCount(LoanFilterDTO filter) {
+        return count(filter);
     }
 
     @Override
@@ -51,9 +190,161 @@ public class LoanServiceImpl implements LoanService {
     }
 
     @Override
-    public List<Loan> getAllLateLoans() {
-        final Integer loanDays = 4;
-        LocalDate threeDaysAgo = LocalDate.now().minusDays(loanDays);
-        return repository.findByLoanDateLessThanAndNotReturned(threeDaysAgo);
+    @Transactional(readOnly = true)
+    public Page<LoanView> getLoanViewsByBook(Book book, Pageable pageable) {
+        return repository.findViewsByBook(book, pageable);
+    }
+
+    @Override
+    public Slice<Loan> getLoanSliceByBook(Book book, Pageable pageable) {
+        return repository.findSliceByBook(book, pageable);
+    }
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.LOAN_COUNTS, key = "{'book', #book.id}")
+    public long estimateLoansByBookCount(Book book) {
+        return repository.countByBook(book);
+    }
+
+    @Override
+    public List<LateLoan> getNewlyOverdueLoans(LocalDate after, LocalDate until, int shard, int shards, int limit) {
+        return repository.findNewlyOverdue(after, until, shard, shards, PageRequest.of(0, limit));
+    }
+
+    /**
+     * A shard without a watermark of its own, as after changing the shard count, starts from the oldest overdue
+     * watermark left by any shard layout, so the loans that fell due in between are still notified; loans
+     * already notified are skipped by the sweep. Only with no watermark at all does it start from today, so a
+     * missing watermark never turns into a sweep of the whole history.
+     */
+    @Override
+    public LocalDate getOverdueWatermark(int shard, int shards) {
+        return watermarkRepository.findById(overdueWatermark(shard, shards))
+                .map(JobWatermark::getWatermark)
+                .orElseGet(() -> watermarkRepository.findOldestWatermark(OVERDUE_WATERMARK).orElseGet(LocalDate::now));
+    }
+
+    @Override
+    @Transactional
+    public void advanceOverdueWatermark(int shard, int shards, LocalDate watermark) {
+        watermarkRepository.save(JobWatermark.builder().name(overdueWatermark(shard, shards)).watermark(watermark).build());
+    }
+
+    /**
+     * Each shard keeps its own watermark; the unsharded sweep keeps the original one.
+     */
+    private String overdueWatermark(int shard, int shards) {
+        return shards == 1 ? OVERDUE_WATERMARK : OVERDUE_WATERMARK + "-" + shard + "/" + shards;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<BookAvailability> getAvailability(Long bookId) {
+        return statsRepository.findAvailabilityById(bookId);
+    }
+
+    @Override
+    public long countOpenLoans() {
+        return repository.countOpen();
+    }
+
+    @Override
+    public long countOverdueLoans() {
+        return repository.countOverdue(LocalDate.now());
+    }
+
+    private long count(LoanFilterDTO filter) {
+        if (StringUtils.hasText(filter.getIsbn()) && StringUtils.hasText(filter.getCustomer())) {
+            Specification<Loan> narrowing = narrowing(filter);
+            Specification<Loan> isbn = LoanSpecifications.bookIsbn(filter.getIsbn());
+            Specification<Loan> customer = LoanSpecifications.customer(filter.getCustomer());
+            return repository.count(isbn.and(narrowing))
+                    + repository.count(customer.and(narrowing))
+                    - repository.count(isbn.and(customer).and(narrowing));
+        }
+        return repository.count(matching(filter));
+    }
+
+    private static Specification<Loan> matching(LoanFilterDTO filter) {
+        Specification<Loan> matching = narrowing(filter);
+        if (StringUtils.hasText(filter.getIsbn()) && StringUtils.hasText(filter.getCustomer())) {
+            return matching.and(LoanSpecifications.bookIsbn(filter.getIsbn()).or(LoanSpecifications.customer(filter.getCustomer())));
+        }
+        if (StringUtils.hasText(filter.getIsbn())) {
+            matching = matching.and(LoanSpecifications.bookIsbn(filter.getIsbn()));
+        }
+        if (StringUtils.hasText(filter.getCustomer())) {
+            matching = matching.and(LoanSpecifications.customer(filter.getCustomer()));
+        }
+        return matching;
+    }
+
+    private static Specification<Loan> narrowing(LoanFilterDTO filter) {
+        Specification<Loan> narrowing = Specification.where(null);
+        if (filter.getLoanDateFrom() != null) {
+            narrowing = narrowing.and(LoanSpecifications.loanedFrom(filter.getLoanDateFrom()));
+        }
+        if (filter.getLoanDateTo() != null) {
+            narrowing = narrowing.and(LoanSpecifications.loanedUntil(filter.getLoanDateTo()));
+        }
+        if (filter.getReturned() != null) {
+            narrowing = narrowing.and(LoanSpecifications.returned(filter.getReturned()));
+        }
+        return narrowing;
+    }
+
+    /**
+     * An offset page of the isbn OR customer search is answered from the two indexed branches, each read up to
+     * the end of the requested page, as long as the page is ordered by id alone. Any other ordering would need
+     * a merge on columns the branches are not read in, so it keeps the single OR query.
+     */
+    private static boolean isUnion(LoanFilterDTO filter, Pageable pageable) {
+        return StringUtils.hasText(filter.getIsbn()) && StringUtils.hasText(filter.getCustomer())
+                && pageable.isPaged()
+                && pageable.getSort().stream().allMatch(order -> "id".equals(order.getProperty()));
+    }
+
+    private static Pageable window(Pageable pageable) {
+        return PageRequest.of(0, (int) pageable.getOffset() + pageable.getPageSize() + 1,
+                Sort.by(idDirection(pageable), "id"));
+    }
+
+    private static Comparator<Long> idOrder(Pageable pageable) {
+        return idDirection(pageable).isDescending() ? Comparator.reverseOrder() : Comparator.naturalOrder();
+    }
+
+    private static Sort.Direction idDirection(Pageable pageable) {
+        Sort.Order order = pageable.getSort().getOrderFor("id");
+        return order == null ? Sort.Direction.ASC : order.getDirection();
+    }
+
+    private static <T> List<T> union(List<T> first, List<T> second, Function<T, Long> id, Comparator<Long> order,
+                                     long skip, int limit) {
+        Map<Long, T> byId = new TreeMap<>(order);
+        first.forEach(row -> byId.put(id.apply(row), row));
+        second.forEach(row -> byId.putIfAbsent(id.apply(row), row));
+        return byId.values().stream().skip(skip).limit(limit).collect(Collectors.toList());
+    }
+
+    /**
+     * Updates the stats row in place. When it is missing, the book row is locked and the update retried before
+     * the row is rebuilt, so concurrent first loans of a book never insert it twice.
+     */
+    private static void recordStats(IntSupplier record, Runnable lock, Runnable rebuild) {
+        if (record.getAsInt() > 0) {
+            return;
+        }
+        lock.run();
+        if (record.getAsInt() == 0) {
+            rebuild.run();
+        }
+    }
+
+    private RuntimeException translateOpenLoanViolation(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        if (message != null && message.toUpperCase().contains(OPEN_LOAN_CONSTRAINT)) {
+            return new BusinessException("Book already loaned");
+        }
+        return e;
     }
 }
@@ -0,0 +1,30 @@
+package com.maycon.libraryapi.api.service.impl;
+
+import java.util.concurrent.TimeUnit;
+
+class MailRateLimiter {
+
+    private final long intervalNanos;
+    private long nextFreeNanos;
+
+    MailRateLimiter(double permitsPerSecond) {
+        this.intervalNanos = permitsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond) : 0;
+        this.nextFreeNanos = System.nanoTime();
+    }
+
+    void acquire(int permits) throws InterruptedException {
+        if (intervalNanos == 0) {
+            return;
+        }
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long start = Math.max(now, nextFreeNanos);
+            nextFreeNanos = start + permits * intervalNanos;
+            waitNanos = start - now;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.maycon.libraryapi.api.service.impl;
+
+import com.maycon.libraryapi.api.model.entity.Book;
+import com.maycon.libraryapi.api.model.repository.ReactiveBookRepository;
+import com.maycon.libraryapi.api.service.ReactiveBookService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+@ConditionalOnProperty(name = "application.reactive.enabled", havingValue = "true")
+public class ReactiveBookServiceImpl implements ReactiveBookService {
+    private ReactiveBookRepository repository;
+
+    public ReactiveBookServiceImpl(ReactiveBookRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public Mono<Book> getById(Long id) {
+        return repository.findById(id);
+    }
+
+    @Override
+    public Flux<Book> find(Book filter, Long lastId) {
+        return repository.findAfter(filter, lastId == null ? 0L : lastId);
+    }
+}
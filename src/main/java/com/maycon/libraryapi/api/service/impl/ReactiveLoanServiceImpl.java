@@ -0,0 +1,30 @@
+package com.maycon.libraryapi.api.service.impl;
+
+import com.maycon.libraryapi.api.DTO.LoanFilterDTO;
+import com.maycon.libraryapi.api.model.entity.Book;
+import com.maycon.libraryapi.api.model.entity.Loan;
+import com.maycon.libraryapi.api.model.repository.ReactiveLoanRepository;
+import com.maycon.libraryapi.api.service.ReactiveLoanService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+@Service
+@ConditionalOnProperty(name = "application.reactive.enabled", havingValue = "true")
+public class ReactiveLoanServiceImpl implements ReactiveLoanService {
+    private ReactiveLoanRepository repository;
+
+    public ReactiveLoanServiceImpl(ReactiveLoanRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public Flux<Loan> find(LoanFilterDTO filter, Long lastId) {
+        return repository.findAfter(filter, lastId == null ? 0L : lastId);
+    }
+
+    @Override
+    public Flux<Loan> getLoansByBook(Book book, Long lastId) {
+        return repository.findByBookAfter(book, lastId == null ? 0L : lastId);
+    }
+}
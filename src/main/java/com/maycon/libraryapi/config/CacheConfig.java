@@ -0,0 +1,57 @@
+package com.maycon.libraryapi.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@EnableCaching
+@Configuration
+public class CacheConfig {
+
+    public static final String BOOKS_BY_ISBN = "booksByIsbn";
+    public static final String ISBN_EXISTS = "isbnExists";
+    public static final String BOOK_COUNTS = "bookCounts";
+    public static final String LOAN_COUNTS = "loanCounts";
+
+    @Value("${application.cache.isbn.maximum-size:10000}")
+    private long isbnMaximumSize;
+
+    @Value("${application.cache.isbn.expire-after-write:10m}")
+    private Duration isbnExpireAfterWrite;
+
+    @Value("${application.cache.counts.maximum-size:1000}")
+    private long countsMaximumSize;
+
+    @Value("${application.cache.counts.expire-after-write:1m}")
+    private Duration countsExpireAfterWrite;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(BOOKS_BY_ISBN, isbnCache().build());
+        cacheManager.registerCustomCache(ISBN_EXISTS, isbnCache().build());
+        cacheManager.registerCustomCache(BOOK_COUNTS, countsCache().build());
+        cacheManager.registerCustomCache(LOAN_COUNTS, countsCache().build());
+        return cacheManager;
+    }
+
+    private Caffeine<Object, Object> isbnCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(isbnMaximumSize)
+                .expireAfterWrite(isbnExpireAfterWrite)
+                .recordStats();
+    }
+
+    private Caffeine<Object, Object> countsCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(countsMaximumSize)
+                .expireAfterWrite(countsExpireAfterWrite)
+                .recordStats();
+    }
+}
@@ -0,0 +1,102 @@
+package com.maycon.libraryapi.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.boot.task.TaskSchedulerCustomizer;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+@Configuration
+public class ConcurrencyConfig implements WebMvcConfigurer {
+
+    private static final int DEFAULT_DB_PERMITS = 10;
+
+    private final ObjectProvider<DataSource> dataSource;
+
+    @Value("${application.threads.virtual:false}")
+    private boolean virtualThreads;
+
+    @Value("${application.concurrency.db-permits:0}")
+    private int dbPermits;
+
+    @Value("${application.concurrency.acquire-timeout:2s}")
+    private Duration acquireTimeout;
+
+    public ConcurrencyConfig(ObjectProvider<DataSource> dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Platform threads are already bounded by the Tomcat pool, so the limiter is only added when virtual threads
+     * are on or when db-permits is set explicitly.
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (!virtualThreads && dbPermits <= 0) {
+            return;
+        }
+        registry.addInterceptor(new DatabaseConcurrencyLimiter(dbPermits(), acquireTimeout))
+                .addPathPatterns("/api/**");
+    }
+
+    /**
+     * Experimental and unsupported: Boot 2.3 targets Java 11, so virtual threads are reached by reflection and
+     * only {@code VirtualThreadsTest} exercises them, on a JDK 21+ that the build does not run. Leave
+     * {@code application.threads.virtual} off in production.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "application.threads.virtual", havingValue = "true")
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandler() {
+        Executor executor = virtualThreadPerTaskExecutor();
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "application.threads.virtual", havingValue = "true")
+    public TaskSchedulerCustomizer virtualThreadTaskScheduler() {
+        ThreadFactory threadFactory = virtualThreadFactory();
+        return taskScheduler -> taskScheduler.setThreadFactory(threadFactory);
+    }
+
+    private int dbPermits() {
+        if (dbPermits > 0) {
+            return dbPermits;
+        }
+        DataSource source = dataSource.getIfAvailable();
+        HikariDataSource pool = source == null ? null : DataSourceUnwrapper.unwrap(source, HikariDataSource.class);
+        if (pool != null) {
+            return pool.getMaximumPoolSize();
+        }
+        return DEFAULT_DB_PERMITS;
+    }
+
+    private static Executor virtualThreadPerTaskExecutor() {
+        try {
+            return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("application.threads.virtual requires a JDK with virtual threads (21+)", e);
+        }
+    }
+
+    private static ThreadFactory virtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("application.threads.virtual requires a JDK with virtual threads (21+)", e);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.maycon.libraryapi.config;
+
+import org.reactivestreams.Publisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+public class DatabaseConcurrencyLimiter implements HandlerInterceptor {
+
+    private static final String PERMIT = DatabaseConcurrencyLimiter.class.getName() + ".PERMIT";
+
+    private final Semaphore permits;
+    private final long acquireTimeoutNanos;
+
+    public DatabaseConcurrencyLimiter(int permits, Duration acquireTimeout) {
+        this.permits = new Semaphore(permits, true);
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (request.getAttribute(PERMIT) != null || isReactive(handler)) {
+            return true;
+        }
+        if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many concurrent requests.");
+        }
+        request.setAttribute(PERMIT, Boolean.TRUE);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(PERMIT) != null) {
+            request.removeAttribute(PERMIT);
+            permits.release();
+        }
+    }
+
+    /**
+     * Streaming handlers do not hold a JDBC connection; the R2DBC pool bounds them instead.
+     */
+    private static boolean isReactive(Object handler) {
+        return handler instanceof HandlerMethod
+                && Publisher.class.isAssignableFrom(((HandlerMethod) handler).getReturnType().getParameterType());
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+}
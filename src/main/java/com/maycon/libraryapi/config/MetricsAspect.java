@@ -0,0 +1,107 @@
+package com.maycon.libraryapi.config;
+
+import com.maycon.libraryapi.exception.BusinessException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.reactivestreams.Publisher;
+import org.springframework.data.repository.Repository;
+import org.springframework.util.ClassUtils;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Times service methods, repository queries and scheduled jobs. Tags are limited to class, method and outcome
+ * so the number of series stays fixed; streaming methods are skipped because they return before doing any work.
+ */
+@Aspect
+public class MetricsAspect {
+
+    public static final String SERVICE_TIMER = "library.service";
+    public static final String REPOSITORY_TIMER = "library.repository";
+    public static final String JOB_TIMER = "library.scheduler.job";
+    public static final String REJECTIONS = "library.business.rejections";
+
+    private static final String SUCCESS = "success";
+    private static final String ERROR = "error";
+
+    private final MeterRegistry registry;
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+    private final ThreadLocal<int[]> serviceDepth = ThreadLocal.withInitial(() -> new int[1]);
+
+    public MetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(public * *(..)) && @within(org.springframework.stereotype.Service) " +
+            "&& !@annotation(org.springframework.scheduling.annotation.Scheduled)")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        int[] depth = serviceDepth.get();
+        depth[0]++;
+        try {
+            return time(joinPoint, SERVICE_TIMER, "class", ClassUtils.getUserClass(joinPoint.getTarget()).getSimpleName());
+        } catch (BusinessException e) {
+            if (depth[0] == 1) {
+                registry.counter(REJECTIONS, "reason", String.valueOf(e.getMessage())).increment();
+            }
+            throw e;
+        } finally {
+            depth[0]--;
+        }
+    }
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, REPOSITORY_TIMER, "repository", repositoryName(joinPoint.getThis().getClass()));
+    }
+
+    @Around("@annotation(org.springframework.scheduling.annotation.Scheduled)")
+    public Object timeJob(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = ERROR;
+        try {
+            Object result = joinPoint.proceed();
+            outcome = SUCCESS;
+            return result;
+        } finally {
+            sample.stop(Timer.builder(JOB_TIMER)
+                    .tag("job", joinPoint.getSignature().getName())
+                    .tag("outcome", outcome)
+                    .register(registry));
+        }
+    }
+
+    private Object time(ProceedingJoinPoint joinPoint, String name, String owner, String ownerName) throws Throwable {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        if (Publisher.class.isAssignableFrom(signature.getReturnType())) {
+            return joinPoint.proceed();
+        }
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = ERROR;
+        try {
+            Object result = joinPoint.proceed();
+            outcome = SUCCESS;
+            return result;
+        } finally {
+            sample.stop(Timer.builder(name)
+                    .tag(owner, ownerName)
+                    .tag("method", signature.getName())
+                    .tag("outcome", outcome)
+                    .register(registry));
+        }
+    }
+
+    private String repositoryName(Class<?> proxyType) {
+        return repositoryNames.computeIfAbsent(proxyType, type -> Arrays.stream(type.getInterfaces())
+                .filter(Repository.class::isAssignableFrom)
+                .filter(repository -> !repository.getName().startsWith("org.springframework."))
+                .findFirst()
+                .map(Class::getSimpleName)
+                .orElseGet(() -> ClassUtils.getUserClass(type).getSimpleName()));
+    }
+}
@@ -0,0 +1,70 @@
+package com.maycon.libraryapi.config;
+
+import com.maycon.libraryapi.api.service.LoanService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+@Configuration
+public class MetricsConfig {
+
+    private static final int MAX_REJECTION_REASONS = 20;
+
+    @Value("${application.metrics.loans.refresh:30s}")
+    private Duration loansRefresh;
+
+    @Bean
+    public MetricsAspect metricsAspect(MeterRegistry registry) {
+        return new MetricsAspect(registry);
+    }
+
+    @Bean
+    public MeterFilter rejectionReasonsFilter() {
+        return MeterFilter.maximumAllowableTags(MetricsAspect.REJECTIONS, "reason", MAX_REJECTION_REASONS, MeterFilter.deny());
+    }
+
+    /**
+     * The counts run on scrape, so they are reused for {@code application.metrics.loans.refresh}.
+     */
+    @Bean
+    public MeterBinder loanGauges(LoanService loanService) {
+        return registry -> {
+            Gauge.builder("library.loans.open", new CachedCount(loanService::countOpenLoans, loansRefresh))
+                    .description("Loans not returned yet")
+                    .register(registry);
+            Gauge.builder("library.loans.overdue", new CachedCount(loanService::countOverdueLoans, loansRefresh))
+                    .description("Loans not returned past the loan period")
+                    .register(registry);
+        };
+    }
+
+    private static final class CachedCount implements Supplier<Number> {
+        private final LongSupplier count;
+        private final long ttlNanos;
+        private volatile long value;
+        private volatile long expiresAt = Long.MIN_VALUE;
+
+        private CachedCount(LongSupplier count, Duration ttl) {
+            this.count = count;
+            this.ttlNanos = ttl.toNanos();
+        }
+
+        @Override
+        public synchronized Number get() {
+            long now = System.nanoTime();
+            if (expiresAt == Long.MIN_VALUE || now - expiresAt >= 0) {
+                value = count.getAsLong();
+                expiresAt = now + ttlNanos;
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.maycon.libraryapi.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+
+import javax.annotation.PreDestroy;
+
+/**
+ * Non-blocking read path for the book and loan listings. Enabled per deployment with
+ * {@code application.reactive.enabled=true}; writes keep going through JPA.
+ * <p>
+ * The pool is deliberately not a bean: Boot backs off the JDBC {@code DataSource} when it finds a
+ * {@code ConnectionFactory} in the context.
+ */
+@Configuration
+@ConditionalOnProperty(name = "application.reactive.enabled", havingValue = "true")
+public class ReactiveConfig {
+
+    private final ConnectionPool connectionPool;
+
+    public ReactiveConfig(@Value("${application.reactive.r2dbc-url}") String url,
+                          @Value("${application.reactive.pool-size:10}") int poolSize) {
+        this.connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(url))
+                .initialSize(Math.min(poolSize, 2))
+                .maxSize(poolSize)
+                .build());
+    }
+
+    @Bean
+    public DatabaseClient reactiveDatabaseClient() {
+        return DatabaseClient.create(connectionPool);
+    }
+
+    public ConnectionPool connectionPool() {
+        return connectionPool;
+    }
+
+    @PreDestroy
+    public void close() {
+        connectionPool.dispose();
+    }
+}
@@ -0,0 +1,30 @@
+package com.maycon.libraryapi.config;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+@Endpoint(id = "slowqueries")
+public class SlowQueriesEndpoint {
+
+    private final StatementProfiler profiler;
+    private final int defaultLimit;
+
+    public SlowQueriesEndpoint(StatementProfiler profiler, int defaultLimit) {
+        this.profiler = profiler;
+        this.defaultLimit = defaultLimit;
+    }
+
+    @ReadOperation
+    public List<StatementProfiler.SlowQuery> slowQueries(@Nullable Integer limit) {
+        return profiler.slowest(limit == null ? defaultLimit : limit);
+    }
+
+    @DeleteOperation
+    public void reset() {
+        profiler.reset();
+    }
+}
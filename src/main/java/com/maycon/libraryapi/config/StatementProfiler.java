@@ -0,0 +1,172 @@
+package com.maycon.libraryapi.config;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Value;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Records every JDBC statement twice: into the profile of the HTTP request running on the current thread, if any,
+ * and into per-query totals keyed by the SQL with literals and IN lists collapsed. Hibernate sends the same few
+ * statement strings over and over, so the normalized form is memoized by the raw SQL; both maps stop growing at
+ * {@code maxQueries} entries.
+ */
+public class StatementProfiler implements QueryExecutionListener {
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final ThreadLocal<RequestProfile> requestProfile = new ThreadLocal<>();
+    private final ThreadLocal<Long> statementStart = new ThreadLocal<>();
+    private final Map<String, QueryTotals> totals = new ConcurrentHashMap<>();
+    private final Map<String, String> normalizedSql = new ConcurrentHashMap<>();
+    private final int maxQueries;
+
+    public StatementProfiler(int maxQueries) {
+        this.maxQueries = maxQueries;
+    }
+
+    public RequestProfile begin() {
+        RequestProfile profile = new RequestProfile();
+        requestProfile.set(profile);
+        return profile;
+    }
+
+    public void end() {
+        requestProfile.remove();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        statementStart.set(System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Long start = statementStart.get();
+        statementStart.remove();
+        long nanos = start == null ? TimeUnit.MILLISECONDS.toNanos(execInfo.getElapsedTime()) : System.nanoTime() - start;
+        String sql = queryInfoList.stream().map(QueryInfo::getQuery).collect(Collectors.joining("; "));
+
+        RequestProfile profile = requestProfile.get();
+        if (profile != null) {
+            profile.record(sql, nanos);
+        }
+
+        String normalized = normalized(sql);
+        QueryTotals query = totals.get(normalized);
+        if (query == null && totals.size() < maxQueries) {
+            query = totals.computeIfAbsent(normalized, key -> new QueryTotals());
+        }
+        if (query != null) {
+            query.record(nanos);
+        }
+    }
+
+    public List<SlowQuery> slowest(int limit) {
+        return totals.entrySet().stream()
+                .map(entry -> entry.getValue().toSlowQuery(entry.getKey()))
+                .sorted(Comparator.comparingDouble(SlowQuery::getMaxMillis).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    public void reset() {
+        totals.clear();
+    }
+
+    String normalized(String sql) {
+        String normalized = normalizedSql.get(sql);
+        if (normalized == null) {
+            normalized = normalize(sql);
+            if (normalizedSql.size() < maxQueries) {
+                normalizedSql.put(sql, normalized);
+            }
+        }
+        return normalized;
+    }
+
+    static String normalize(String sql) {
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = IN_LIST.matcher(normalized).replaceAll("(?)");
+        return WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000d;
+    }
+
+    @Getter
+    public static class RequestProfile {
+        private int statements;
+        private long totalNanos;
+        private long slowestNanos;
+        private String slowestSql;
+
+        private void record(String sql, long nanos) {
+            statements++;
+            totalNanos += nanos;
+            if (nanos >= slowestNanos) {
+                slowestNanos = nanos;
+                slowestSql = sql;
+            }
+        }
+
+        public double getTotalMillis() {
+            return millis(totalNanos);
+        }
+
+        public double getSlowestMillis() {
+            return millis(slowestNanos);
+        }
+    }
+
+    @Value
+    @Builder
+    public static class SlowQuery {
+        String sql;
+        long count;
+        double totalMillis;
+        double meanMillis;
+        double maxMillis;
+    }
+
+    private static final class QueryTotals {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        private SlowQuery toSlowQuery(String sql) {
+            long executions = count.sum();
+            long total = totalNanos.sum();
+            return SlowQuery.builder()
+                    .sql(sql)
+                    .count(executions)
+                    .totalMillis(millis(total))
+                    .meanMillis(executions == 0 ? 0 : millis(total / executions))
+                    .maxMillis(millis(maxNanos.get()))
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.maycon.libraryapi.config;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Opt-in like every other per-request overhead: the data source is only proxied when
+ * {@code application.profiling.enabled} is true.
+ */
+@Configuration
+@ConditionalOnProperty(name = "application.profiling.enabled", havingValue = "true")
+public class StatementProfilingConfig {
+
+    @Value("${application.profiling.max-queries:1000}")
+    private int maxQueries;
+
+    @Value("${application.profiling.top-queries:10}")
+    private int topQueries;
+
+    @Value("${application.profiling.slow-request-threshold:500ms}")
+    private Duration slowRequestThreshold;
+
+    /**
+     * Wraps the pool instead of replacing it; {@code DataSourceUnwrapper} still reaches the Hikari pool underneath.
+     */
+    @Bean
+    public static BeanPostProcessor profiledDataSourcePostProcessor(ObjectProvider<StatementProfiler> profiler) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create((DataSource) bean)
+                            .name(beanName)
+                            .listener(profiler.getObject())
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public StatementProfiler statementProfiler() {
+        return new StatementProfiler(maxQueries);
+    }
+
+    @Bean
+    public FilterRegistrationBean<StatementProfilingFilter> statementProfilingFilter(StatementProfiler profiler) {
+        FilterRegistrationBean<StatementProfilingFilter> registration =
+                new FilterRegistrationBean<>(new StatementProfilingFilter(profiler, slowRequestThreshold));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    @Bean
+    public SlowQueriesEndpoint slowQueriesEndpoint(StatementProfiler profiler) {
+        return new SlowQueriesEndpoint(profiler, topQueries);
+    }
+}
@@ -0,0 +1,116 @@
+package com.maycon.libraryapi.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adds a {@code Server-Timing: db} header with the statements run before the response started, and logs the
+ * requests slower than {@code application.profiling.slow-request-threshold} with their slowest statement.
+ */
+@Slf4j
+public class StatementProfilingFilter extends OncePerRequestFilter {
+
+    private static final String SERVER_TIMING = "Server-Timing";
+
+    private final StatementProfiler profiler;
+    private final long slowRequestNanos;
+
+    public StatementProfilingFilter(StatementProfiler profiler, Duration slowRequestThreshold) {
+        this.profiler = profiler;
+        this.slowRequestNanos = slowRequestThreshold.toNanos();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        StatementProfiler.RequestProfile profile = profiler.begin();
+        try {
+            ServerTimingResponse timedResponse = new ServerTimingResponse(response, profile);
+            chain.doFilter(request, timedResponse);
+            timedResponse.writeHeader();
+        } finally {
+            profiler.end();
+            long elapsed = System.nanoTime() - start;
+            if (elapsed >= slowRequestNanos) {
+                log.warn("Slow request {} {} took {} ms: {} statements, {} ms in JDBC, slowest {} ms: {}",
+                        request.getMethod(), request.getRequestURI(), TimeUnit.NANOSECONDS.toMillis(elapsed),
+                        profile.getStatements(), format(profile.getTotalMillis()),
+                        format(profile.getSlowestMillis()), profile.getSlowestSql());
+            }
+        }
+    }
+
+    private static String format(double millis) {
+        return String.format(Locale.ROOT, "%.1f", millis);
+    }
+
+    /**
+     * Headers can only be added until the body starts, so the header is written on the first access to the body.
+     */
+    private static final class ServerTimingResponse extends HttpServletResponseWrapper {
+        private final StatementProfiler.RequestProfile profile;
+        private boolean written;
+
+        private ServerTimingResponse(HttpServletResponse response, StatementProfiler.RequestProfile profile) {
+            super(response);
+            this.profile = profile;
+        }
+
+        private void writeHeader() {
+            if (!written && !isCommitted()) {
+                written = true;
+                setHeader(SERVER_TIMING, String.format(Locale.ROOT, "db;dur=%.1f;desc=\"%d statements\"",
+                        profile.getTotalMillis(), profile.getStatements()));
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeader();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeader();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeader();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeader();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeHeader();
+            super.sendRedirect(location);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+create table book (
+    id bigint auto_increment primary key,
+    title varchar(255),
+    author varchar(255),
+    isbn varchar(255)
+);
+
+create table loan (
+    id bigint auto_increment primary key,
+    customer varchar(100),
+    customer_email varchar(255),
+    id_book bigint,
+    loan_date date,
+    returned boolean
+);
+
+create table late_loan_notification (
+    id bigint auto_increment primary key,
+    idempotency_key varchar(40) not null,
+    id_loan bigint not null,
+    customer_email varchar(255),
+    created_at timestamp not null,
+    sent_at timestamp,
+    attempts integer not null,
+    constraint uk_late_loan_notification_key unique (idempotency_key)
+);
@@ -0,0 +1,11 @@
+create unique index ux_book_isbn on book (isbn);
+
+create index ix_loan_book on loan (id_book);
+
+alter table loan add constraint fk_loan_book foreign key (id_book) references book (id);
+
+create index ix_loan_customer on loan (customer);
+
+create index ix_loan_loan_date_returned on loan (loan_date, returned);
+
+create index ix_late_loan_notification_pending on late_loan_notification (sent_at, attempts, id);
@@ -0,0 +1,4 @@
+alter table loan add column open_book_id bigint
+    as case when returned then null else id_book end;
+
+create unique index ux_loan_open_book on loan (open_book_id);
@@ -0,0 +1 @@
+alter table book add column version bigint default 0 not null;
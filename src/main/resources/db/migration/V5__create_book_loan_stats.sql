@@ -0,0 +1,16 @@
+create table book_loan_stats (
+    book_id bigint primary key,
+    open_loan boolean not null,
+    total_loans bigint not null,
+    last_loan_date date,
+    constraint fk_book_loan_stats_book foreign key (book_id) references book (id) on delete cascade
+);
+
+insert into book_loan_stats (book_id, open_loan, total_loans, last_loan_date)
+select id_book,
+       max(case when returned then 0 else 1 end) = 1,
+       count(*),
+       max(loan_date)
+from loan
+where id_book is not null
+group by id_book;
@@ -0,0 +1,14 @@
+alter table loan add column due_date date;
+alter table loan add column overdue_notified_at timestamp;
+
+update loan set due_date = dateadd('DAY', 4, loan_date) where loan_date is not null;
+
+create index ix_loan_due_date on loan (due_date);
+
+create table job_watermark (
+    name varchar(64) primary key,
+    watermark date not null
+);
+
+-- loans already overdue were picked up by the nightly scan this sweeper replaces
+insert into job_watermark (name, watermark) values ('overdue-loans', current_date);
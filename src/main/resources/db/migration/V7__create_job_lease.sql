@@ -0,0 +1,5 @@
+create table job_lease (
+    name varchar(255) primary key,
+    owner varchar(128),
+    expires_at timestamp not null
+);
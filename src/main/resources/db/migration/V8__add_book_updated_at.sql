@@ -0,0 +1,3 @@
+alter table book add column updated_at timestamp default current_timestamp on update current_timestamp not null;
+
+create index ix_book_updated_at on book (updated_at, id);
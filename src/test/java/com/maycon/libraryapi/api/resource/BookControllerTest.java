@@ -3,8 +3,14 @@ package com.maycon.libraryapi.api.resource;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.maycon.libraryapi.api.DTO.BookDTO;
+import com.maycon.libraryapi.api.DTO.BookImportRejectionDTO;
+import com.maycon.libraryapi.api.DTO.BookImportResultDTO;
 import com.maycon.libraryapi.api.model.entity.Book;
+import com.maycon.libraryapi.api.model.projection.BookAvailability;
+import com.maycon.libraryapi.api.model.projection.BookLookup;
+import com.maycon.libraryapi.api.model.projection.BookView;
 import com.maycon.libraryapi.api.service.BookService;
+import com.maycon.libraryapi.api.service.LoanService;
 import com.maycon.libraryapi.exception.BusinessException;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.DisplayName;
@@ -16,9 +22,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -26,9 +35,18 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -48,6 +66,9 @@ public class BookControllerTest {
     @MockBean
     BookService service;
 
+    @MockBean
+    LoanService loanService;
+
     @Test
     @DisplayName("Criar um livro com sucesso.")
     public void createBookTest() throws Exception {
@@ -150,10 +171,117 @@ public class BookControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @DisplayName("Retorna o ETag da versão do livro junto com os detalhes.")
+    public void getBookEtagTest() throws Exception {
+        Book book = Book.builder().id(1l).title("As aventuras").author("Arthur").isbn("001").version(3l).build();
+        BDDMockito.given(service.getById(1l)).willReturn(Optional.of(book));
+
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1")).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(header().string("Cache-Control", containsString("must-revalidate")));
+    }
+
+    @Test
+    @DisplayName("Retorna 304 pela versão do livro, sem carregar a entidade, quando o ETag não mudou.")
+    public void getBookNotModifiedTest() throws Exception {
+        BDDMockito.given(service.getVersion(1l)).willReturn(Optional.of(3l));
+
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1"))
+                .header("If-None-Match", "\"3\"")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"3\""));
+
+        Mockito.verify(service, Mockito.never()).getById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Retorna 412 ao deletar um livro com If-Match de uma versão antiga.")
+    public void deleteStaleBookTest() throws Exception {
+        BDDMockito.given(service.deleteById(1l, Collections.singleton(3l)))
+                .willThrow(new OptimisticLockingFailureException("stale"));
+
+        mvc.perform(MockMvcRequestBuilders.delete(BOOK_API.concat("/1")).header("If-Match", "\"3\""))
+                .andExpect(status().isPreconditionFailed());
+
+        Mockito.verify(service, Mockito.never()).getById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Retorna a disponibilidade de um livro pelas estatísticas de empréstimo.")
+    public void bookAvailabilityTest() throws Exception {
+        BDDMockito.given(loanService.getAvailability(1l)).willReturn(Optional.of(availability(1l, "001", true, 3l)));
+
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1/availability")).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("available").value(false))
+                .andExpect(jsonPath("totalLoans").value(3));
+    }
+
+    @Test
+    @DisplayName("Resolve muitos isbns de uma vez, na ordem pedida e ignorando os inexistentes.")
+    public void lookupTest() throws Exception {
+        List<String> isbns = IntStream.range(0, 5000).mapToObj(i -> String.format("%05d", i)).collect(Collectors.toList());
+        List<BookLookup> found = isbns.stream().filter(isbn -> !isbn.equals("00002"))
+                .map(isbn -> lookup(Long.valueOf(isbn) + 1, isbn, isbn.equals("00001") ? true : null))
+                .collect(Collectors.toList());
+        BDDMockito.given(service.lookup(isbns)).willReturn(found);
+
+        mvc.perform(MockMvcRequestBuilders.post(BOOK_API.concat("/lookup"))
+                .content(new ObjectMapper().writeValueAsString(isbns))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(4999))
+                .andExpect(jsonPath("$['00000'].available").value(true))
+                .andExpect(jsonPath("$['00000'].book.id").value(1))
+                .andExpect(jsonPath("$['00000'].totalLoans").value(0))
+                .andExpect(jsonPath("$['00001'].available").value(false))
+                .andExpect(jsonPath("$['00001'].totalLoans").value(1))
+                .andExpect(jsonPath("$['00002']").doesNotExist())
+                .andExpect(jsonPath("$['04999'].book.isbn").value("04999"));
+    }
+
+    @Test
+    @DisplayName("Deve recusar uma busca com mais isbns do que o limite.")
+    public void tooManyIsbnsLookupTest() throws Exception {
+        List<String> isbns = IntStream.range(0, 10001).mapToObj(String::valueOf).collect(Collectors.toList());
+
+        mvc.perform(MockMvcRequestBuilders.post(BOOK_API.concat("/lookup"))
+                .content(new ObjectMapper().writeValueAsString(isbns))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verify(service, Mockito.never()).lookup(Mockito.anyCollection());
+    }
+
+    private static BookLookup lookup(Long id, String isbn, Boolean openLoan) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", id);
+        row.put("title", "Aventuras");
+        row.put("author", "Fulano");
+        row.put("isbn", isbn);
+        row.put("openLoan", openLoan);
+        row.put("totalLoans", openLoan == null ? null : 1L);
+        return new SpelAwareProxyProjectionFactory().createProjection(BookLookup.class, row);
+    }
+
+    private static BookAvailability availability(Long bookId, String isbn, Boolean openLoan, Long totalLoans) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("bookId", bookId);
+        row.put("isbn", isbn);
+        row.put("openLoan", openLoan);
+        row.put("totalLoans", totalLoans);
+        return new SpelAwareProxyProjectionFactory().createProjection(BookAvailability.class, row);
+    }
+
     @Test
     @DisplayName("Deleta um livro")
     public void deleteBookTest() throws Exception {
-        BDDMockito.given(service.getById(anyLong())).willReturn(Optional.of(Book.builder().id(1l).build()));
+        BDDMockito.given(service.deleteById(1l, null)).willReturn(true);
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
                 .delete(BOOK_API.concat("/" + 1));
@@ -161,12 +289,13 @@ public class BookControllerTest {
 
         mvc.perform(request)
                 .andExpect(status().isNoContent());
+        Mockito.verify(service, Mockito.never()).getById(anyLong());
     }
 
     @Test
     @DisplayName("Retorna resource not found quando não encontrar um libro para deletar.")
     public void deleteInexistenteBookTest() throws Exception {
-        BDDMockito.given(service.getById(anyLong())).willReturn(Optional.empty());
+        BDDMockito.given(service.deleteById(Mockito.anyLong(), Mockito.any())).willReturn(false);
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
                 .delete(BOOK_API.concat("/" + 1))
@@ -182,13 +311,13 @@ public class BookControllerTest {
         Long id = 1l;
         String json = new ObjectMapper().writeValueAsString(createNewBook());
 
-        Book updatingBook = Book.builder().id(1l).title("some title").author("some author").isbn("321").build();
-        BDDMockito.given(service.getById(id)).willReturn(Optional.of(updatingBook));
-        Book updatedBook = Book.builder().id(id).author("Arthur").title("As aventuras").isbn("001").build();
-        BDDMockito.given(service.update(updatingBook)).willReturn(updatedBook);
+        Book updatedBook = Book.builder().id(id).author("Arthur").title("As aventuras").isbn("001").version(5l).build();
+        BDDMockito.given(service.updateDetails(Mockito.eq(id), Mockito.any(), Mockito.any(), Mockito.eq(Collections.singleton(4l))))
+                .willReturn(Optional.of(updatedBook));
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
                 .put(BOOK_API.concat("/" + 1))
+                .header("If-Match", "W/\"9\", \"4\"")
                 .content(json)
                 .accept(MediaType.APPLICATION_JSON)
                 .contentType(MediaType.APPLICATION_JSON);
@@ -196,12 +325,13 @@ public class BookControllerTest {
 
         mvc.perform(request)
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"5\""))
                 .andExpect(jsonPath("id").value(id))
                 .andExpect(jsonPath("title").value(createNewBook().getTitle()))
                 .andExpect(jsonPath("author").value(createNewBook().getAuthor()))
                 .andExpect(jsonPath("isbn").value(createNewBook().getIsbn()));
 
-
+        Mockito.verify(service, Mockito.never()).getById(anyLong());
     }
 
     @Test
@@ -210,7 +340,7 @@ public class BookControllerTest {
 
         String json = new ObjectMapper().writeValueAsString(createNewBook());
 
-        BDDMockito.given(service.getById(Mockito.anyLong()))
+        BDDMockito.given(service.updateDetails(Mockito.anyLong(), Mockito.any(), Mockito.any(), Mockito.any()))
                 .willReturn(Optional.empty());
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
@@ -237,8 +367,15 @@ public class BookControllerTest {
                 .isbn(createNewBook().getIsbn())
                 .build();
 
-        BDDMockito.given(service.find(Mockito.any(Book.class), Mockito.any(Pageable.class)))
-                .willReturn(new PageImpl<Book>(Arrays.asList(book), PageRequest.of(0, 100), 1));
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", book.getId());
+        row.put("title", book.getTitle());
+        row.put("author", book.getAuthor());
+        row.put("isbn", book.getIsbn());
+        BookView view = new SpelAwareProxyProjectionFactory().createProjection(BookView.class, row);
+
+        BDDMockito.given(service.findViews(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+                .willReturn(new PageImpl<BookView>(Arrays.asList(view), PageRequest.of(0, 100), 1));
 
         String queryString = String.format("?title=%s&author=%s&page=0&size=100",
                 book.getTitle(),
@@ -250,11 +387,165 @@ public class BookControllerTest {
         mvc.perform(request)
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("content[0].isbn").value(book.getIsbn()))
                 .andExpect(jsonPath("totalElements").value(1))
                 .andExpect(jsonPath("pageable.pageSize").value(100))
                 .andExpect(jsonPath("pageable.pageNumber").value(0));
     }
 
+    @Test
+    @DisplayName("Deve filtrar livros sem contar o total.")
+    public void findBookWithoutCountTest() throws Exception {
+        Book book = Book.builder().id(1l).title("As aventuras").author("Arthur").isbn("001").build();
+
+        BDDMockito.given(service.findSlice(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+                .willReturn(new SliceImpl<Book>(Arrays.asList(book), PageRequest.of(0, 1), true));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(BOOK_API.concat("?author=Arthur&page=0&size=1&count=none"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("hasNext").value(true))
+                .andExpect(jsonPath("totalElements").isEmpty())
+                .andExpect(jsonPath("totalExact").value(false));
+        Mockito.verify(service, Mockito.never()).find(Mockito.any(), Mockito.any());
+        Mockito.verify(service, Mockito.never()).estimateCount(Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros com o total estimado.")
+    public void findBookWithEstimatedCountTest() throws Exception {
+        Book book = Book.builder().id(1l).title("As aventuras").author("Arthur").isbn("001").build();
+
+        BDDMockito.given(service.findSlice(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+                .willReturn(new SliceImpl<Book>(Arrays.asList(book), PageRequest.of(0, 10), false));
+        BDDMockito.given(service.estimateCount(Mockito.any(Book.class))).willReturn(1l);
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(BOOK_API.concat("?author=Arthur&count=estimated"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("hasNext").value(false))
+                .andExpect(jsonPath("totalElements").value(1))
+                .andExpect(jsonPath("totalExact").value(false));
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro ao filtrar livros com um modo de contagem inválido.")
+    public void findBookInvalidCountTest() throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(BOOK_API.concat("?count=aproximado"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("Invalid count mode."));
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros a partir de um cursor.")
+    public void findBookAfterCursorTest() throws Exception {
+        Book book = Book.builder().id(7l).title("As aventuras").author("Arthur").isbn("001").build();
+
+        BDDMockito.given(service.findAfter(Mockito.any(Book.class), Mockito.eq(5l), Mockito.eq(1)))
+                .willReturn(new SliceImpl<Book>(Arrays.asList(book), PageRequest.of(0, 1), true));
+
+        String queryString = String.format("?author=%s&after=%s&size=1", book.getAuthor(), Cursors.encode(5l));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(BOOK_API.concat(queryString))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("content[0].id").value(7))
+                .andExpect(jsonPath("size").value(1))
+                .andExpect(jsonPath("next").value(Cursors.encode(7l)))
+                .andExpect(jsonPath("totalElements").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro ao filtrar livros com um cursor inválido.")
+    public void findBookInvalidCursorTest() throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(BOOK_API.concat("?after=invalido"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isBadRequest());
+        Mockito.verify(service, Mockito.never()).findAfter(Mockito.any(), Mockito.any(), Mockito.anyInt());
+    }
+
+    @Test
+    @DisplayName("Deve buscar livros pelo índice de texto.")
+    public void searchBooksTest() throws Exception {
+        Book book = Book.builder().id(1l).title("As aventuras").author("Arthur").isbn("001").build();
+        BDDMockito.given(service.search("aventuras", 5)).willReturn(Arrays.asList(book));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(BOOK_API.concat("/search?q=aventuras&size=5"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", Matchers.hasSize(1)))
+                .andExpect(jsonPath("[0].title").value(book.getTitle()));
+    }
+
+    @Test
+    @DisplayName("Deve importar livros a partir de um array JSON.")
+    public void importJsonBooksTest() throws Exception {
+        List<BookDTO> imported = new ArrayList<>();
+        BDDMockito.given(service.importBooks(Mockito.any())).willAnswer(invocation -> {
+            Iterator<BookDTO> rows = invocation.getArgument(0);
+            rows.forEachRemaining(imported::add);
+            return BookImportResultDTO.builder().accepted(imported.size()).build();
+        });
+        String json = new ObjectMapper().writeValueAsString(Arrays.asList(createNewBook(), createNewBook()));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API.concat("/bulk"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("accepted").value(2));
+        assertThat(imported).containsExactly(createNewBook(), createNewBook());
+    }
+
+    @Test
+    @DisplayName("Deve importar livros a partir de um arquivo CSV.")
+    public void importCsvBooksTest() throws Exception {
+        List<BookDTO> imported = new ArrayList<>();
+        BDDMockito.given(service.importBooks(Mockito.any())).willAnswer(invocation -> {
+            Iterator<BookDTO> rows = invocation.getArgument(0);
+            rows.forEachRemaining(imported::add);
+            return BookImportResultDTO.builder()
+                    .accepted(1)
+                    .rejected(1)
+                    .rejections(Arrays.asList(BookImportRejectionDTO.builder().row(2).reason("Title, author and isbn are required.").build()))
+                    .build();
+        });
+        String csv = "title,author,isbn\n\"As aventuras, parte 1\",Arthur,001\nSem autor,,002\n";
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API.concat("/bulk"))
+                .contentType("text/csv")
+                .accept(MediaType.APPLICATION_JSON)
+                .content(csv);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("accepted").value(1))
+                .andExpect(jsonPath("rejections[0].row").value(2));
+        assertThat(imported).containsExactly(
+                BookDTO.builder().title("As aventuras, parte 1").author("Arthur").isbn("001").build(),
+                BookDTO.builder().title("Sem autor").author("").isbn("002").build());
+    }
+
     public BookDTO createNewBook() {
         return BookDTO.builder().author("Arthur").title("As aventuras").isbn("001").build();
     }
@@ -8,6 +8,7 @@ import com.maycon.libraryapi.api.DTO.LoanFilterDTO;
 import com.maycon.libraryapi.api.model.entity.Book;
 import com.maycon.libraryapi.api.service.BookService;
 import com.maycon.libraryapi.api.model.entity.Loan;
+import com.maycon.libraryapi.api.model.projection.LoanView;
 import com.maycon.libraryapi.api.service.LoanService;
 import com.maycon.libraryapi.exception.BusinessException;
 import com.maycon.libraryapi.service.LoanServiceTest;
@@ -24,6 +25,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -33,6 +35,8 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
@@ -122,9 +126,7 @@ public class LoanControllerTest {
     @DisplayName("Deve retornar um livro")
     public void returnBookTest() throws Exception {
         ReturnedLoanDTO dto = ReturnedLoanDTO.builder().returned(true).build();
-        Loan loan = Loan.builder().id(1l).build();
-        BDDMockito.given(loanService.getById(Mockito.anyLong()))
-                .willReturn(Optional.of(loan));
+        BDDMockito.given(loanService.markReturned(1l, true)).willReturn(true);
 
 
         String json = new ObjectMapper().writeValueAsString(dto);
@@ -135,7 +137,8 @@ public class LoanControllerTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(json))
                 .andExpect(status().isOk());
-        Mockito.verify(loanService, Mockito.times(1)).update(loan);
+        Mockito.verify(loanService, Mockito.times(1)).markReturned(1l, true);
+        Mockito.verify(loanService, Mockito.never()).getById(Mockito.anyLong());
 
     }
 
@@ -145,8 +148,8 @@ public class LoanControllerTest {
         ReturnedLoanDTO dto = ReturnedLoanDTO.builder().returned(true).build();
         String json = new ObjectMapper().writeValueAsString(dto);
 
-        BDDMockito.given(loanService.getById(Mockito.anyLong()))
-                .willReturn(Optional.empty());
+        BDDMockito.given(loanService.markReturned(Mockito.anyLong(), Mockito.any()))
+                .willReturn(false);
 
         mvc.perform(
                 patch(LOAN_API.concat("/1"))
@@ -166,8 +169,15 @@ public class LoanControllerTest {
         Book book = Book.builder().id(1l).isbn("321").build();
         loan.setBook(book);
 
-        BDDMockito.given(loanService.find(Mockito.any(LoanFilterDTO.class), Mockito.any(Pageable.class)))
-                .willReturn(new PageImpl<Loan>(Arrays.asList(loan), PageRequest.of(0, 100), 1));
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", loan.getId());
+        row.put("customer", loan.getCustomer());
+        row.put("bookId", book.getId());
+        row.put("bookIsbn", book.getIsbn());
+        LoanView view = new SpelAwareProxyProjectionFactory().createProjection(LoanView.class, row);
+
+        BDDMockito.given(loanService.findViews(Mockito.any(LoanFilterDTO.class), Mockito.any(Pageable.class)))
+                .willReturn(new PageImpl<LoanView>(Arrays.asList(view), PageRequest.of(0, 100), 1));
 
         String queryString = String.format("?isbn=%s&customer=%s&page=0&size=100",
                 book.getIsbn(), loan.getCustomer());
@@ -178,6 +188,8 @@ public class LoanControllerTest {
         mvc.perform(request)
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("content[0].isbn").value(book.getIsbn()))
+                .andExpect(jsonPath("content[0].book.id").value(book.getId()))
                 .andExpect(jsonPath("totalElements").value(1))
                 .andExpect(jsonPath("pageable.pageSize").value(100))
                 .andExpect(jsonPath("pageable.pageNumber").value(0));
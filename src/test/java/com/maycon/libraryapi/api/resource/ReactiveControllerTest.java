@@ -0,0 +1,156 @@
+package com.maycon.libraryapi.api.resource;
+
+import com.maycon.libraryapi.api.DTO.LoanFilterDTO;
+import com.maycon.libraryapi.api.model.entity.Book;
+import com.maycon.libraryapi.api.model.entity.Loan;
+import com.maycon.libraryapi.api.model.repository.BookRepository;
+import com.maycon.libraryapi.api.model.repository.LoanRepository;
+import com.maycon.libraryapi.api.service.ReactiveLoanService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {
+        "application.reactive.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:reactive;DB_CLOSE_DELAY=-1",
+        "application.reactive.r2dbc-url=r2dbc:h2:mem:///reactive?options=DB_CLOSE_DELAY=-1"
+})
+public class ReactiveControllerTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    ReactiveLoanService reactiveLoanService;
+
+    @AfterEach
+    public void tearDown() {
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve transmitir os livros filtrados, um por linha.")
+    public void streamBooksTest() throws Exception {
+        Book first = bookRepository.save(Book.builder().title("Aventuras").author("Fulano").isbn("001").build());
+        Book second = bookRepository.save(Book.builder().title("Novas aventuras").author("Fulano").isbn("002").build());
+        bookRepository.save(Book.builder().title("Outro livro").author("Ciclano").isbn("003").build());
+
+        MvcResult result = mvc.perform(get("/api/books?title=AVENTURA").accept(MediaType.APPLICATION_STREAM_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.trim().split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).contains("\"id\":" + first.getId(), "\"isbn\":\"001\"");
+        assertThat(lines[1]).contains("\"id\":" + second.getId(), "\"isbn\":\"002\"");
+    }
+
+    @Test
+    @DisplayName("Deve retomar a transmissão de livros a partir do cursor.")
+    public void streamBooksAfterTest() throws Exception {
+        Book first = bookRepository.save(Book.builder().title("Aventuras").author("Fulano").isbn("001").build());
+        Book second = bookRepository.save(Book.builder().title("Novas aventuras").author("Fulano").isbn("002").build());
+
+        MvcResult result = mvc.perform(get("/api/books")
+                .param("after", Cursors.encode(first.getId()))
+                .accept(MediaType.APPLICATION_STREAM_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(body.trim().split("\n")).hasSize(1);
+        assertThat(body).contains("\"id\":" + second.getId());
+    }
+
+    @Test
+    @DisplayName("Deve retornar 404 ao transmitir os empréstimos de um livro inexistente.")
+    public void streamLoansOfInexistentBookTest() throws Exception {
+        MvcResult result = mvc.perform(get("/api/books/999/loans").accept(MediaType.APPLICATION_STREAM_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Deve continuar respondendo a página JSON quando o cliente não pede transmissão.")
+    public void pagedBooksStillServedTest() throws Exception {
+        bookRepository.save(Book.builder().title("Aventuras").author("Fulano").isbn("001").build());
+
+        mvc.perform(get("/api/books?title=aventura").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("totalElements").value(1));
+    }
+
+    @Test
+    @DisplayName("Deve filtrar empréstimos pelo isbn ou customer sem bloquear.")
+    public void findLoansTest() {
+        Book book = bookRepository.save(Book.builder().title("Aventuras").author("Fulano").isbn("001").build());
+        Book other = bookRepository.save(Book.builder().title("Outro livro").author("Ciclano").isbn("002").build());
+        Loan byIsbn = loanRepository.save(Loan.builder().book(book).customer("Beltrano").loanDate(LocalDate.now()).build());
+        Loan byCustomer = loanRepository.save(Loan.builder().book(other).customer("Fulano").loanDate(LocalDate.now()).build());
+
+        LoanFilterDTO filter = LoanFilterDTO.builder().isbn("001").customer("Fulano").build();
+
+        StepVerifier.create(reactiveLoanService.find(filter, null))
+                .assertNext(loan -> {
+                    assertThat(loan.getId()).isEqualTo(byIsbn.getId());
+                    assertThat(loan.getBook().getIsbn()).isEqualTo("001");
+                })
+                .assertNext(loan -> assertThat(loan.getId()).isEqualTo(byCustomer.getId()))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Deve aplicar os filtros de data e devolução como a busca paginada.")
+    public void findLoansByDateAndReturnedTest() {
+        Book book = bookRepository.save(Book.builder().title("Aventuras").author("Fulano").isbn("001").build());
+        Book other = bookRepository.save(Book.builder().title("Outro livro").author("Ciclano").isbn("002").build());
+        Book old = bookRepository.save(Book.builder().title("Livro antigo").author("Ciclano").isbn("003").build());
+        Loan open = loanRepository.save(Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build());
+        loanRepository.save(Loan.builder().book(other).customer("Fulano").loanDate(LocalDate.now()).returned(true).build());
+        loanRepository.save(Loan.builder().book(old).customer("Fulano").loanDate(LocalDate.now().minusDays(30)).build());
+
+        LoanFilterDTO filter = LoanFilterDTO.builder().customer("Fulano")
+                .loanDateFrom(LocalDate.now().minusDays(1)).loanDateTo(LocalDate.now()).returned(false).build();
+
+        StepVerifier.create(reactiveLoanService.find(filter, null))
+                .assertNext(loan -> assertThat(loan.getId()).isEqualTo(open.getId()))
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,50 @@
+package com.maycon.libraryapi.api.resource;
+
+import com.maycon.libraryapi.api.model.entity.Book;
+import com.maycon.libraryapi.api.model.repository.BookRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@SpringBootTest(properties = "application.reactive.enabled=true")
+public class ReactiveDefaultsTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Test
+    @DisplayName("Com as URLs padrão, a transmissão deve ler o mesmo banco migrado e gravado pelo JPA.")
+    public void streamReadsJdbcDatabaseTest() throws Exception {
+        Book book = bookRepository.save(Book.builder().title("Aventuras").author("Fulano").isbn("001").build());
+
+        MvcResult result = mvc.perform(get("/api/books").accept(MediaType.APPLICATION_STREAM_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(body).contains("\"id\":" + book.getId(), "\"isbn\":\"001\"");
+        bookRepository.delete(book);
+    }
+}
@@ -0,0 +1,57 @@
+package com.maycon.libraryapi.benchmark;
+
+import com.maycon.libraryapi.api.model.entity.Book;
+import com.maycon.libraryapi.api.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BookSearchBenchmark {
+
+    @Param("1000000")
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+
+    @Setup
+    public void setUp() {
+        context = LibraryBenchmarks.start();
+        LibraryBenchmarks.seedBooks(context.getBean(JdbcTemplate.class), rows);
+        bookService = context.getBean(BookService.class);
+        bookService.reindex();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Book> likeScan() {
+        Book filter = Book.builder().title("title " + ThreadLocalRandom.current().nextInt(1, rows + 1)).build();
+        return bookService.find(filter, PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public List<Book> indexSearch() {
+        return bookService.search("title " + ThreadLocalRandom.current().nextInt(1, rows + 1), 20);
+    }
+
+    @Benchmark
+    public List<Book> indexSearchByAuthorPrefix() {
+        return bookService.search("auth " + ThreadLocalRandom.current().nextInt(1, 1000), 20);
+    }
+}
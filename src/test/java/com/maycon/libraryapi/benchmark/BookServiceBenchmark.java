@@ -0,0 +1,58 @@
+package com.maycon.libraryapi.benchmark;
+
+import com.maycon.libraryapi.api.model.entity.Book;
+import com.maycon.libraryapi.api.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BookServiceBenchmark {
+
+    @Param("10000")
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+
+    @Setup
+    public void setUp() {
+        context = LibraryBenchmarks.start();
+        LibraryBenchmarks.seedBooks(context.getBean(JdbcTemplate.class), rows);
+        bookService = context.getBean(BookService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Book> findByTitle() {
+        Book filter = Book.builder().title("title " + ThreadLocalRandom.current().nextInt(1, rows + 1)).build();
+        return bookService.find(filter, PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public Page<Book> findByAuthorAndTitle() {
+        int i = ThreadLocalRandom.current().nextInt(1, rows + 1);
+        Book filter = Book.builder().author("Author " + (i % 1000)).title("Title " + i).build();
+        return bookService.find(filter, PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public Optional<Book> getBookByIsbn() {
+        return bookService.getBookByIsbn(LibraryBenchmarks.isbn(ThreadLocalRandom.current().nextInt(1, rows + 1)));
+    }
+}
@@ -0,0 +1,71 @@
+package com.maycon.libraryapi.benchmark;
+
+import com.maycon.libraryapi.LibraryApiApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+final class LibraryBenchmarks {
+
+    private static final int SEED_BATCH_SIZE = 10_000;
+
+    private LibraryBenchmarks() {
+    }
+
+    static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(LibraryApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.main.banner-mode=off",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "logging.level.root=WARN")
+                .run();
+    }
+
+    static ConfigurableApplicationContext startWeb(String... properties) {
+        return new SpringApplicationBuilder(LibraryApiApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .properties(
+                        "spring.main.banner-mode=off",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "server.port=0",
+                        "logging.level.root=WARN")
+                .properties(properties)
+                .run();
+    }
+
+    static void seedBooks(JdbcTemplate jdbcTemplate, int rows) {
+        List<Object[]> batch = new ArrayList<>(SEED_BATCH_SIZE);
+        for (int i = 1; i <= rows; i++) {
+            batch.add(new Object[]{"Title " + i, "Author " + (i % 1000), isbn(i)});
+            if (batch.size() == SEED_BATCH_SIZE || i == rows) {
+                jdbcTemplate.batchUpdate("insert into book (title, author, isbn) values (?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+    }
+
+    static void seedReturnedLoans(JdbcTemplate jdbcTemplate, int rows, int books) {
+        List<Object[]> batch = new ArrayList<>(SEED_BATCH_SIZE);
+        LocalDate today = LocalDate.now();
+        for (int i = 1; i <= rows; i++) {
+            batch.add(new Object[]{"Customer " + (i % 5000), "customer" + (i % 5000) + "@email.com",
+                    (long) (i % books) + 1, Date.valueOf(today.minusDays(i % 365)), true});
+            if (batch.size() == SEED_BATCH_SIZE || i == rows) {
+                jdbcTemplate.batchUpdate("insert into loan (customer, customer_email, id_book, loan_date, returned) " +
+                        "values (?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+    }
+
+    static String isbn(int i) {
+        return "isbn-" + i;
+    }
+}
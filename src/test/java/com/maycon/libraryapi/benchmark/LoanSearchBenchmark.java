@@ -0,0 +1,105 @@
+package com.maycon.libraryapi.benchmark;
+
+import com.maycon.libraryapi.api.DTO.LoanFilterDTO;
+import com.maycon.libraryapi.api.model.entity.Loan;
+import com.maycon.libraryapi.api.model.projection.LoanView;
+import com.maycon.libraryapi.api.service.LoanService;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class LoanSearchBenchmark {
+
+    private static final int LOANS_PER_BOOK = 50;
+    private static final int CUSTOMERS = 5000;
+    private static final int PAGE_SIZE = 20;
+
+    private static final String OR_ACROSS_JOIN = "select l.id, l.customer, b.isbn from loan l " +
+            "join book b on b.id = l.id_book where (b.isbn = ? or l.customer = ?) and l.id > 0 order by l.id limit ?";
+    private static final String BY_ISBN = "select l.id from loan l " +
+            "where l.id_book in (select id from book where isbn = ?) and l.id > 0 order by l.id limit ?";
+    private static final String BY_CUSTOMER = "select l.id from loan l " +
+            "where l.customer = ? and l.id > 0 order by l.id limit ?";
+
+    @Param("5000000")
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private LoanService loanService;
+    private JdbcTemplate jdbcTemplate;
+    private int books;
+
+    @Setup
+    public void setUp() {
+        context = LibraryBenchmarks.start();
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        books = Math.max(1, rows / LOANS_PER_BOOK);
+        LibraryBenchmarks.seedBooks(jdbcTemplate, books);
+        LibraryBenchmarks.seedReturnedLoans(jdbcTemplate, rows, books);
+        loanService = context.getBean(LoanService.class);
+
+        explain("or across join", OR_ACROSS_JOIN, LibraryBenchmarks.isbn(1), "Customer 1", PAGE_SIZE);
+        explain("isbn branch", BY_ISBN, LibraryBenchmarks.isbn(1), PAGE_SIZE);
+        explain("customer branch", BY_CUSTOMER, "Customer 1", PAGE_SIZE);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> orAcrossJoin() {
+        return jdbcTemplate.queryForList(OR_ACROSS_JOIN, randomIsbn(), randomCustomer(), PAGE_SIZE + 1);
+    }
+
+    @Benchmark
+    public Slice<Loan> byIsbn() {
+        return loanService.findAfter(LoanFilterDTO.builder().isbn(randomIsbn()).build(), null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Slice<Loan> byCustomer() {
+        return loanService.findAfter(LoanFilterDTO.builder().customer(randomCustomer()).build(), null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Slice<Loan> byIsbnOrCustomer() {
+        LoanFilterDTO filter = LoanFilterDTO.builder().isbn(randomIsbn()).customer(randomCustomer()).build();
+        return loanService.findAfter(filter, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Page<LoanView> byIsbnOrCustomerCounted() {
+        LoanFilterDTO filter = LoanFilterDTO.builder().isbn(randomIsbn()).customer(randomCustomer()).build();
+        return loanService.findViews(filter, PageRequest.of(0, PAGE_SIZE));
+    }
+
+    private void explain(String label, String sql, Object... args) {
+        log.info("Plan for {}: {}", label, jdbcTemplate.queryForObject("explain " + sql, String.class, args));
+    }
+
+    private String randomIsbn() {
+        return LibraryBenchmarks.isbn(ThreadLocalRandom.current().nextInt(1, books + 1));
+    }
+
+    private String randomCustomer() {
+        return "Customer " + ThreadLocalRandom.current().nextInt(CUSTOMERS);
+    }
+}
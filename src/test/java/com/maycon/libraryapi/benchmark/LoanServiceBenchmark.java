@@ -0,0 +1,64 @@
+package com.maycon.libraryapi.benchmark;
+
+import com.maycon.libraryapi.api.model.entity.Book;
+import com.maycon.libraryapi.api.model.entity.Loan;
+import com.maycon.libraryapi.api.service.LoanService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LoanServiceBenchmark {
+
+    @Param("10000")
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private LoanService loanService;
+    private JdbcTemplate jdbcTemplate;
+
+    private long nextBookId;
+    private Long lastLoanId;
+
+    @Setup
+    public void setUp() {
+        context = LibraryBenchmarks.start();
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        LibraryBenchmarks.seedBooks(jdbcTemplate, rows);
+        LibraryBenchmarks.seedReturnedLoans(jdbcTemplate, rows, rows);
+        loanService = context.getBean(LoanService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void returnLastLoan() {
+        if (lastLoanId != null) {
+            jdbcTemplate.update("update loan set returned = true where id = ?", lastLoanId);
+        }
+        nextBookId = nextBookId % rows + 1;
+    }
+
+    @Benchmark
+    public Loan save() {
+        Loan loan = Loan.builder()
+                .book(Book.builder().id(nextBookId).build())
+                .customer("Fulano")
+                .customerEmail("fulano@email.com")
+                .loanDate(LocalDate.now())
+                .build();
+        lastLoanId = loanService.save(loan).getId();
+        return loan;
+    }
+}
@@ -0,0 +1,82 @@
+package com.maycon.libraryapi.benchmark;
+
+import com.maycon.libraryapi.api.DTO.BookDTO;
+import com.maycon.libraryapi.api.DTO.LoanDTO;
+import com.maycon.libraryapi.api.mapper.BookMapper;
+import com.maycon.libraryapi.api.mapper.LoanMapper;
+import com.maycon.libraryapi.api.model.entity.Book;
+import com.maycon.libraryapi.api.model.entity.Loan;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+    @Param("100")
+    private int pageSize;
+
+    private ModelMapper modelMapper;
+    private BookMapper bookMapper;
+    private LoanMapper loanMapper;
+
+    private List<Book> books;
+    private List<Loan> loans;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        bookMapper = new BookMapper();
+        loanMapper = new LoanMapper(bookMapper);
+
+        books = LongStream.rangeClosed(1, pageSize)
+                .mapToObj(id -> Book.builder().id(id).title("Title " + id).author("Author " + id).isbn("isbn-" + id).build())
+                .collect(Collectors.toList());
+        loans = books.stream()
+                .map(book -> Loan.builder().id(book.getId()).book(book).customer("Fulano")
+                        .customerEmail("fulano@email.com").loanDate(LocalDate.now()).build())
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<BookDTO> booksPageModelMapper() {
+        return books.stream()
+                .map(book -> modelMapper.map(book, BookDTO.class))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<BookDTO> booksPageMapper() {
+        return books.stream()
+                .map(bookMapper::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<LoanDTO> loansPageModelMapper() {
+        return loans.stream()
+                .map(loan -> {
+                    BookDTO bookDTO = modelMapper.map(loan.getBook(), BookDTO.class);
+                    LoanDTO loanDTO = modelMapper.map(loan, LoanDTO.class);
+                    loanDTO.setBook(bookDTO);
+                    return loanDTO;
+                }).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<LoanDTO> loansPageMapper() {
+        return loans.stream()
+                .map(loanMapper::toDTO)
+                .collect(Collectors.toList());
+    }
+}
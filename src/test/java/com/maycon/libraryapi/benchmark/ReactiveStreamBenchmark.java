@@ -0,0 +1,109 @@
+package com.maycon.libraryapi.benchmark;
+
+import com.maycon.libraryapi.config.ReactiveConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.PoolMetrics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fires {@code clients} concurrent listing requests at the paged MVC endpoint and at the streamed R2DBC endpoint,
+ * and reports the peak JVM threads and the peak busy database connections alongside the wall time of the burst.
+ * 10k sockets need a matching file-descriptor limit ({@code ulimit -n}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ReactiveStreamBenchmark {
+
+    @Param({"paged", "stream"})
+    private String mode;
+
+    @Param("10000")
+    private int clients;
+
+    @Param("10000")
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private String accept;
+    private ScheduledExecutorService sampler;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Usage {
+        public int peakThreads;
+        public int peakConnections;
+    }
+
+    @Setup
+    public void setUp() {
+        context = LibraryBenchmarks.startWeb(
+                "application.reactive.enabled=true",
+                "application.reactive.r2dbc-url=r2dbc:h2:mem:///benchmark?options=DB_CLOSE_DELAY=-1",
+                "application.concurrency.acquire-timeout=60s",
+                "server.tomcat.max-connections=" + (clients + 100));
+        LibraryBenchmarks.seedBooks(context.getBean(JdbcTemplate.class), rows);
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port + "/api/books";
+        accept = "stream".equals(mode) ? "application/stream+json" : "application/json";
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        sampler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @TearDown
+    public void tearDown() {
+        sampler.shutdownNow();
+        context.close();
+    }
+
+    @Benchmark
+    public int burst(Usage usage) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        HikariDataSource dataSource = DataSourceUnwrapper.unwrap(context.getBean(DataSource.class), HikariDataSource.class);
+        ConnectionPool pool = context.getBean(ReactiveConfig.class).connectionPool();
+        int[] peakConnections = new int[1];
+        ScheduledFuture<?> sampling = sampler.scheduleAtFixedRate(() -> peakConnections[0] = Math.max(peakConnections[0],
+                dataSource.getHikariPoolMXBean().getActiveConnections()
+                        + pool.getMetrics().map(PoolMetrics::acquiredSize).orElse(0)),
+                0, 5, TimeUnit.MILLISECONDS);
+
+        CompletableFuture<?>[] responses = new CompletableFuture<?>[clients];
+        for (int i = 0; i < clients; i++) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "?author=Author%20" + (i % 1000) + "&size=20"))
+                    .header("Accept", accept)
+                    .GET()
+                    .build();
+            responses[i] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding());
+        }
+        CompletableFuture.allOf(responses).join();
+        sampling.cancel(false);
+
+        usage.peakThreads = threads.getPeakThreadCount();
+        usage.peakConnections = peakConnections[0];
+        return responses.length;
+    }
+}
@@ -0,0 +1,59 @@
+package com.maycon.libraryapi.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of the platform-thread and virtual-thread modes. SampleTime mode reports the p99 latency, and
+ * the throughput is the inverse of the mean. The virtual mode is experimental and untested on this stack; it
+ * needs a JDK with virtual threads, so on older JDKs run with {@code -Djmh.args="-p virtualThreads=false"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Threads(400)
+@Fork(1)
+public class WebConcurrencyBenchmark {
+
+    @Param({"false", "true"})
+    private String virtualThreads;
+
+    @Param("10000")
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+
+    @Setup
+    public void setUp() {
+        context = LibraryBenchmarks.startWeb("application.threads.virtual=" + virtualThreads);
+        LibraryBenchmarks.seedBooks(context.getBean(JdbcTemplate.class), rows);
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port + "/api/books";
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int findBooks() throws Exception {
+        int i = ThreadLocalRandom.current().nextInt(1, rows + 1);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "?title=Title%20" + i + "&size=20")).GET().build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
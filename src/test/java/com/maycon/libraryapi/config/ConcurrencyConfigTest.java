@@ -0,0 +1,51 @@
+package com.maycon.libraryapi.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class ConcurrencyConfigTest {
+
+    @Test
+    @DisplayName("Não deve registrar o limitador de conexões no modo padrão de threads.")
+    public void noLimiterByDefaultTest() {
+        assertThat(interceptors(false, 0)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve registrar o limitador de conexões com threads virtuais.")
+    public void limiterWithVirtualThreadsTest() {
+        assertThat(interceptors(true, 0)).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Deve registrar o limitador de conexões quando o número de vagas for configurado.")
+    public void limiterWithDbPermitsTest() {
+        assertThat(interceptors(false, 5)).hasSize(1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object> interceptors(boolean virtualThreads, int dbPermits) {
+        ConcurrencyConfig config = new ConcurrencyConfig(mock(ObjectProvider.class));
+        ReflectionTestUtils.setField(config, "virtualThreads", virtualThreads);
+        ReflectionTestUtils.setField(config, "dbPermits", dbPermits);
+        ReflectionTestUtils.setField(config, "acquireTimeout", Duration.ofSeconds(2));
+        Registry registry = new Registry();
+        config.addInterceptors(registry);
+        return registry.interceptors();
+    }
+
+    private static class Registry extends InterceptorRegistry {
+        List<Object> interceptors() {
+            return getInterceptors();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.maycon.libraryapi.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class DatabaseConcurrencyLimiterTest {
+
+    @Test
+    @DisplayName("Deve recusar requisições acima do limite de conexões e liberar a vaga ao final.")
+    public void limitConcurrentRequestsTest() throws Exception {
+        DatabaseConcurrencyLimiter limiter = new DatabaseConcurrencyLimiter(1, Duration.ofMillis(10));
+        MockHttpServletRequest first = new MockHttpServletRequest();
+        MockHttpServletRequest second = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(limiter.preHandle(first, response, null)).isTrue();
+        Throwable rejected = catchThrowable(() -> limiter.preHandle(second, response, null));
+        limiter.afterCompletion(second, response, null, null);
+
+        assertThat(rejected).isInstanceOf(ResponseStatusException.class);
+        assertThat(((ResponseStatusException) rejected).getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(limiter.availablePermits()).isZero();
+
+        limiter.afterCompletion(first, response, null, null);
+
+        assertThat(limiter.availablePermits()).isEqualTo(1);
+        assertThat(limiter.preHandle(second, response, null)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Não deve ocupar uma segunda vaga quando a requisição assíncrona é redespachada.")
+    public void asyncRedispatchTest() throws Exception {
+        DatabaseConcurrencyLimiter limiter = new DatabaseConcurrencyLimiter(2, Duration.ofMillis(10));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        limiter.preHandle(request, response, null);
+        limiter.preHandle(request, response, null);
+
+        assertThat(limiter.availablePermits()).isEqualTo(1);
+
+        limiter.afterCompletion(request, response, null, null);
+
+        assertThat(limiter.availablePermits()).isEqualTo(2);
+    }
+}
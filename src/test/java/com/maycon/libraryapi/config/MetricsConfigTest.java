@@ -0,0 +1,85 @@
+package com.maycon.libraryapi.config;
+
+import com.maycon.libraryapi.api.model.entity.Book;
+import com.maycon.libraryapi.api.model.repository.BookRepository;
+import com.maycon.libraryapi.api.service.BookService;
+import com.maycon.libraryapi.api.service.ScheduleService;
+import com.maycon.libraryapi.exception.BusinessException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+public class MetricsConfigTest {
+
+    @Autowired
+    MeterRegistry registry;
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    ScheduleService scheduleService;
+
+    @AfterEach
+    public void tearDown() {
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve cronometrar os métodos de serviço e as consultas do repositório.")
+    public void serviceAndRepositoryTimersTest() {
+        bookService.save(Book.builder().title("As aventuras").author("Fulano").isbn("metrics-001").build());
+
+        assertThat(registry.find(MetricsAspect.SERVICE_TIMER)
+                .tags("class", "BookServiceImpl", "method", "save", "outcome", "success")
+                .timer()).isNotNull();
+        assertThat(registry.find(MetricsAspect.REPOSITORY_TIMER)
+                .tags("repository", "BookRepository", "method", "existsByIsbn", "outcome", "success")
+                .timer()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Deve contar as rejeições de negócio pelo motivo.")
+    public void businessRejectionCounterTest() {
+        Book book = Book.builder().title("As aventuras").author("Fulano").isbn("metrics-002").build();
+        bookService.save(book);
+        double before = registry.counter(MetricsAspect.REJECTIONS, "reason", "Isbn já cadastrado.").count();
+
+        Throwable rejected = catchThrowable(() ->
+                bookService.save(Book.builder().title("Outro").author("Ciclano").isbn("metrics-002").build()));
+
+        assertThat(rejected).isInstanceOf(BusinessException.class);
+        assertThat(registry.counter(MetricsAspect.REJECTIONS, "reason", "Isbn já cadastrado.").count())
+                .isEqualTo(before + 1);
+        assertThat(registry.find(MetricsAspect.SERVICE_TIMER)
+                .tags("class", "BookServiceImpl", "method", "save", "outcome", "error")
+                .timer()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Deve expor os empréstimos em aberto e atrasados e a duração das tarefas agendadas.")
+    public void gaugesAndJobTimerTest() {
+        scheduleService.refreshBookSearchIndex();
+
+        assertThat(registry.get("library.loans.open").gauge().value()).isGreaterThanOrEqualTo(0);
+        assertThat(registry.get("library.loans.overdue").gauge().value()).isGreaterThanOrEqualTo(0);
+        assertThat(registry.find(MetricsAspect.JOB_TIMER)
+                .tags("job", "refreshBookSearchIndex", "outcome", "success")
+                .timer()).isNotNull();
+    }
+}
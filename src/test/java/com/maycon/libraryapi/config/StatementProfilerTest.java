@@ -0,0 +1,84 @@
+package com.maycon.libraryapi.config;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StatementProfilerTest {
+
+    @Test
+    @DisplayName("Deve normalizar literais e listas IN para agrupar as consultas.")
+    public void normalizeTest() {
+        String sql = "select * from book  where isbn = '123' and id in (?, ?, ?) and id > 10";
+
+        assertThat(StatementProfiler.normalize(sql)).isEqualTo("select * from book where isbn = ? and id in (?) and id > ?");
+        assertThat(StatementProfiler.normalize("select book0_.id from book book0_"))
+                .isEqualTo("select book0_.id from book book0_");
+    }
+
+    @Test
+    @DisplayName("Deve reaproveitar a consulta normalizada e parar de memorizar ao atingir o limite.")
+    public void memoizeNormalizedTest() {
+        StatementProfiler profiler = new StatementProfiler(1);
+
+        String first = profiler.normalized("select * from loan where id = 1");
+        assertThat(profiler.normalized("select * from loan where id = 1")).isSameAs(first);
+        assertThat(profiler.normalized("select * from book where id = 2")).isEqualTo("select * from book where id = ?");
+        assertThat(profiler.normalized("select * from book where id = 2"))
+                .isNotSameAs(profiler.normalized("select * from book where id = 2"));
+    }
+
+    @Test
+    @DisplayName("Deve acumular as consultas por requisição e no ranking das mais lentas.")
+    public void recordStatementsTest() {
+        StatementProfiler profiler = new StatementProfiler(10);
+
+        StatementProfiler.RequestProfile profile = profiler.begin();
+        execute(profiler, "select * from loan where id = 1");
+        execute(profiler, "select * from loan where id = 2");
+        execute(profiler, "select count(*) from book");
+        profiler.end();
+        execute(profiler, "select count(*) from book");
+
+        assertThat(profile.getStatements()).isEqualTo(3);
+        assertThat(profile.getSlowestSql()).isNotNull();
+        List<StatementProfiler.SlowQuery> slowest = profiler.slowest(10);
+        assertThat(slowest).extracting(StatementProfiler.SlowQuery::getSql)
+                .containsExactlyInAnyOrder("select * from loan where id = ?", "select count(*) from book");
+        assertThat(slowest).allMatch(query -> query.getCount() == 2);
+        assertThat(profiler.slowest(1)).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Deve adicionar o cabeçalho Server-Timing com as consultas da requisição.")
+    public void serverTimingHeaderTest() throws Exception {
+        StatementProfiler profiler = new StatementProfiler(10);
+        StatementProfilingFilter filter = new StatementProfilingFilter(profiler, Duration.ofSeconds(1));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/loans"), response, (req, res) -> {
+            execute(profiler, "select * from loan");
+            execute(profiler, "select * from book");
+            res.getWriter().write("[]");
+        });
+
+        assertThat(response.getHeader("Server-Timing")).startsWith("db;dur=").endsWith("desc=\"2 statements\"");
+    }
+
+    private static void execute(StatementProfiler profiler, String sql) {
+        QueryInfo query = new QueryInfo(sql);
+        List<QueryInfo> queries = Collections.singletonList(query);
+        ExecutionInfo execution = new ExecutionInfo();
+        profiler.beforeQuery(execution, queries);
+        profiler.afterQuery(execution, queries);
+    }
+}
@@ -0,0 +1,53 @@
+package com.maycon.libraryapi.config;
+
+import org.apache.catalina.connector.Connector;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The only coverage of the virtual-thread mode. It needs a JDK with virtual threads (21+), which this Boot 2.3
+ * stack does not target, so on the build's JDK it is skipped before the context starts.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "application.threads.virtual=true")
+public class VirtualThreadsTest {
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Autowired
+    ServletWebServerApplicationContext context;
+
+    @BeforeAll
+    public static void requireVirtualThreads() {
+        Assumptions.assumeTrue(Runtime.version().feature() >= 21, "virtual threads need JDK 21+");
+    }
+
+    @Test
+    @DisplayName("Deve atender requisições com threads virtuais no Tomcat.")
+    public void serveRequestOnVirtualThreadsTest() {
+        Connector connector = ((TomcatWebServer) context.getWebServer()).getTomcat().getConnector();
+        assertThat(connector.getProtocolHandler().getExecutor().getClass().getName())
+                .contains("ThreadPerTaskExecutor");
+
+        ResponseEntity<String> response = restTemplate.getForEntity("/api/books?title=Aventuras", String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+}
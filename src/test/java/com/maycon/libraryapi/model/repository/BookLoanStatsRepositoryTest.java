@@ -0,0 +1,72 @@
+package com.maycon.libraryapi.model.repository;
+
+import com.maycon.libraryapi.api.model.entity.Book;
+import com.maycon.libraryapi.api.model.entity.BookLoanStats;
+import com.maycon.libraryapi.api.model.entity.Loan;
+import com.maycon.libraryapi.api.model.repository.BookLoanStatsRepository;
+import com.maycon.libraryapi.api.model.repository.LoanRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDate;
+
+import static com.maycon.libraryapi.model.repository.BookRepositoryTest.createNewBook;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+public class BookLoanStatsRepositoryTest {
+
+    @Autowired
+    BookLoanStatsRepository repository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Test
+    @DisplayName("Deve manter o livro emprestado ao devolver de novo um empréstimo já devolvido enquanto outro segue aberto.")
+    public void returnReturnedLoanKeepsBookOpenTest() {
+        Book book = entityManager.persist(createNewBook("123"));
+        Loan returned = entityManager.persist(loan(book, true));
+        entityManager.persist(loan(book, false));
+        entityManager.persist(BookLoanStats.builder().bookId(book.getId()).openLoan(true).totalLoans(2).build());
+        entityManager.flush();
+
+        loanRepository.markReturned(returned.getId(), true);
+        int recorded = repository.recordOpenByLoan(returned.getId());
+        entityManager.clear();
+
+        assertThat(recorded).isEqualTo(1);
+        assertThat(repository.findAvailabilityById(book.getId()).get().getOpenLoan()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve liberar o livro quando o seu último empréstimo aberto for devolvido.")
+    public void returnLastOpenLoanFreesBookTest() {
+        Book book = entityManager.persist(createNewBook("123"));
+        Loan open = entityManager.persist(loan(book, false));
+        entityManager.persist(BookLoanStats.builder().bookId(book.getId()).openLoan(true).totalLoans(1).build());
+        entityManager.flush();
+
+        loanRepository.markReturned(open.getId(), true);
+        repository.recordOpen(book.getId());
+        entityManager.clear();
+
+        assertThat(repository.findAvailabilityById(book.getId()).get().getOpenLoan()).isFalse();
+    }
+
+    private Loan loan(Book book, boolean returned) {
+        return Loan.builder().book(book).customer("Fulano").customerEmail("fulano@email.com")
+                .loanDate(LocalDate.now()).dueDate(LocalDate.now().plusDays(4)).returned(returned).build();
+    }
+}
@@ -1,6 +1,9 @@
 package com.maycon.libraryapi.model.repository;
 
 import com.maycon.libraryapi.api.model.entity.Book;
+import com.maycon.libraryapi.api.model.entity.BookLoanStats;
+import com.maycon.libraryapi.api.model.projection.BookLookup;
+import com.maycon.libraryapi.api.model.projection.BookView;
 import com.maycon.libraryapi.api.model.repository.BookRepository;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -8,12 +11,22 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
@@ -68,6 +81,20 @@ public class BookRepositoryTest {
         assertThat(foundBook.isPresent()).isTrue();
     }
 
+    @Test
+    @DisplayName("Deve obter somente a versão do livro, incrementada a cada alteração.")
+    public void findVersionByIdTest() {
+        Book book = createNewBook("123");
+        entityManager.persistAndFlush(book);
+        book.setTitle("Outro titulo");
+        entityManager.flush();
+
+        Optional<Long> version = repository.findVersionById(book.getId());
+
+        assertThat(version).contains(1L);
+        assertThat(repository.findVersionById(999L)).isEmpty();
+    }
+
     @Test
     @DisplayName("Deve salvar um livro")
     public void saveBookTest() {
@@ -90,4 +117,132 @@ public class BookRepositoryTest {
         Book deletedBook = entityManager.find(Book.class, book.getId());
         assertThat(deletedBook).isNull();
     }
+
+    @Test
+    @DisplayName("Deve retornar os isbns já cadastrados dentre os informados.")
+    public void findExistingIsbnsTest() {
+        entityManager.persist(createNewBook("123"));
+
+        Set<String> existing = repository.findExistingIsbns(Arrays.asList("123", "456"));
+
+        assertThat(existing).containsExactly("123");
+    }
+
+    @Test
+    @DisplayName("Deve inserir livros em lote.")
+    public void insertAllTest() {
+        repository.insertAll(Arrays.asList(createNewBook("123"), createNewBook("456")));
+
+        assertThat(repository.findIdByIsbn("123")).isPresent();
+        assertThat(repository.findIdByIsbn("456")).isPresent();
+    }
+
+    @Test
+    @DisplayName("Deve buscar livros a partir do último id lido, sem offset.")
+    public void findAfterTest() {
+        Book first = createNewBook("123");
+        Book second = createNewBook("456");
+        Book other = Book.builder().title("Outro").author("ciclano").isbn("789").build();
+        entityManager.persist(first);
+        entityManager.persist(second);
+        entityManager.persist(other);
+        Example<Book> example = Example.of(Book.builder().author("FULANO").build(),
+                ExampleMatcher.matching().withIgnoreCase().withIgnoreNullValues());
+
+        List<Book> firstChunk = repository.findAfter(example, 0L, 1);
+        List<Book> secondChunk = repository.findAfter(example, first.getId(), 10);
+
+        assertThat(firstChunk).containsExactly(first);
+        assertThat(secondChunk).containsExactly(second);
+    }
+
+    @Test
+    @DisplayName("Deve buscar uma fatia de livros sem contar o total.")
+    public void findSliceTest() {
+        Book first = createNewBook("123");
+        Book second = createNewBook("456");
+        entityManager.persist(first);
+        entityManager.persist(second);
+        Example<Book> example = Example.of(Book.builder().author("fulano").build());
+
+        Slice<Book> firstSlice = repository.findSlice(example, PageRequest.of(0, 1, Sort.by("isbn")));
+        Slice<Book> lastSlice = repository.findSlice(example, PageRequest.of(1, 1, Sort.by("isbn")));
+
+        assertThat(firstSlice.getContent()).containsExactly(first);
+        assertThat(firstSlice.hasNext()).isTrue();
+        assertThat(lastSlice.getContent()).containsExactly(second);
+        assertThat(lastSlice.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve buscar livros já no formato da resposta, sem carregar entidades.")
+    public void findViewsTest() {
+        Book book = createNewBook("123");
+        entityManager.persist(book);
+        entityManager.persist(Book.builder().title("Outro").author("ciclano").isbn("456").build());
+        entityManager.clear();
+
+        List<BookView> views = repository.findViews(Example.of(Book.builder().author("fulano").build()), PageRequest.of(0, 10));
+
+        assertThat(views).hasSize(1);
+        assertThat(views.get(0).getId()).isEqualTo(book.getId());
+        assertThat(views.get(0).getTitle()).isEqualTo(book.getTitle());
+        assertThat(views.get(0).getIsbn()).isEqualTo("123");
+    }
+
+    @Test
+    @DisplayName("Deve buscar vários livros pelos isbns junto com o empréstimo em aberto, numa única consulta.")
+    public void findLookupsByIsbnInTest() {
+        Book loaned = createNewBook("123");
+        Book available = createNewBook("456");
+        entityManager.persist(loaned);
+        entityManager.persist(available);
+        entityManager.persist(BookLoanStats.builder().bookId(loaned.getId()).openLoan(true).totalLoans(1).build());
+        entityManager.clear();
+
+        List<BookLookup> lookups = repository.findLookupsByIsbnIn(Arrays.asList("123", "456", "999"));
+
+        assertThat(lookups).extracting(BookLookup::getIsbn).containsExactlyInAnyOrder("123", "456");
+        assertThat(lookups).filteredOn(lookup -> lookup.getIsbn().equals("123"))
+                .extracting(BookLookup::getOpenLoan, BookLookup::getTotalLoans).containsExactly(tuple(true, 1L));
+        assertThat(lookups).filteredOn(lookup -> lookup.getIsbn().equals("456"))
+                .extracting(BookLookup::getOpenLoan).containsOnlyNulls();
+    }
+
+    @Test
+    @DisplayName("Deve atualizar título e autor num único update, só na versão esperada, incrementando a versão.")
+    public void updateDetailsTest() {
+        Book book = createNewBook("123");
+        entityManager.persist(book);
+        Long version = book.getVersion();
+        entityManager.clear();
+
+        int stale = repository.updateDetails(book.getId(), "Outro", "Ciclano", Collections.singleton(version + 1));
+        int updated = repository.updateDetails(book.getId(), "Outro", "Ciclano", Collections.singleton(version));
+        entityManager.clear();
+
+        Book found = entityManager.find(Book.class, book.getId());
+        assertThat(stale).isZero();
+        assertThat(updated).isEqualTo(1);
+        assertThat(found.getTitle()).isEqualTo("Outro");
+        assertThat(found.getAuthor()).isEqualTo("Ciclano");
+        assertThat(found.getVersion()).isEqualTo(version + 1);
+    }
+
+    @Test
+    @DisplayName("Deve deletar um livro pelo id num único delete, informando as linhas afetadas.")
+    public void deleteBookByIdTest() {
+        Book book = createNewBook("123");
+        entityManager.persist(book);
+        entityManager.clear();
+
+        int stale = repository.deleteBookByIdAndVersionIn(book.getId(), Collections.singleton(book.getVersion() + 1));
+        int deleted = repository.deleteBookById(book.getId());
+        int missing = repository.deleteBookById(book.getId());
+
+        assertThat(stale).isZero();
+        assertThat(deleted).isEqualTo(1);
+        assertThat(missing).isZero();
+        assertThat(repository.existsById(book.getId())).isFalse();
+    }
 }
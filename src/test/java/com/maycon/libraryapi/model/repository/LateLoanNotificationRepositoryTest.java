@@ -0,0 +1,82 @@
+package com.maycon.libraryapi.model.repository;
+
+import com.maycon.libraryapi.api.model.entity.LateLoanNotification;
+import com.maycon.libraryapi.api.model.repository.LateLoanNotificationRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+public class LateLoanNotificationRepositoryTest {
+
+    @Autowired
+    private LateLoanNotificationRepository repository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    @DisplayName("Deve retornar as chaves de idempotência já registradas.")
+    public void findExistingKeysTest() {
+        createAndPersistNotification(1l, "1:2020-11-10");
+
+        Set<String> keys = repository.findExistingKeys(Arrays.asList("1:2020-11-10", "2:2020-11-10"));
+
+        assertThat(keys).containsExactly("1:2020-11-10");
+    }
+
+    @Test
+    @DisplayName("Deve obter somente as notificações pendentes dentro do limite de tentativas.")
+    public void findPendingTest() {
+        LateLoanNotification pending = createAndPersistNotification(1l, "1:2020-11-10");
+        LateLoanNotification sent = createAndPersistNotification(2l, "2:2020-11-10");
+        sent.setSentAt(LocalDateTime.now());
+        LateLoanNotification exhausted = createAndPersistNotification(3l, "3:2020-11-10");
+        exhausted.setAttempts(5);
+        entityManager.flush();
+
+        List<LateLoanNotification> result = repository.findPending(5, PageRequest.of(0, 10));
+
+        assertThat(result).containsExactly(pending);
+    }
+
+    @Test
+    @DisplayName("Deve marcar notificações como enviadas.")
+    public void markSentTest() {
+        LateLoanNotification notification = createAndPersistNotification(1l, "1:2020-11-10");
+
+        int updated = repository.markSent(Collections.singletonList(notification.getId()), LocalDateTime.now());
+        entityManager.clear();
+
+        LateLoanNotification found = entityManager.find(LateLoanNotification.class, notification.getId());
+        assertThat(updated).isEqualTo(1);
+        assertThat(found.getSentAt()).isNotNull();
+        assertThat(found.getAttempts()).isEqualTo(1);
+    }
+
+    private LateLoanNotification createAndPersistNotification(Long loanId, String key) {
+        LateLoanNotification notification = LateLoanNotification.builder()
+                .loanId(loanId)
+                .idempotencyKey(key)
+                .customerEmail("customer" + loanId + "@email.com")
+                .createdAt(LocalDateTime.now())
+                .build();
+        return entityManager.persist(notification);
+    }
+}
@@ -0,0 +1,95 @@
+package com.maycon.libraryapi.model.repository;
+
+import com.maycon.libraryapi.api.model.entity.Book;
+import com.maycon.libraryapi.api.model.entity.Loan;
+import com.maycon.libraryapi.api.model.projection.LateLoan;
+import com.maycon.libraryapi.api.model.repository.LoanRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.maycon.libraryapi.api.model.repository.LoanSpecifications.bookIsbn;
+import static com.maycon.libraryapi.api.model.repository.LoanSpecifications.customer;
+import static com.maycon.libraryapi.model.repository.BookRepositoryTest.createNewBook;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class LoanRepositoryStatementsTest {
+
+    private static final int LOANS = 5;
+
+    @Autowired
+    LoanRepository repository;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        for (int i = 0; i < LOANS; i++) {
+            Book book = entityManager.persist(createNewBook("isbn-" + i));
+            entityManager.persist(Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now().minusDays(5))
+                    .dueDate(LocalDate.now().minusDays(1)).customerEmail("fulano@email.com").build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("A busca de empréstimos a partir de um id deve carregar os livros com uma única consulta.")
+    public void findAfterFetchesBooksTest() {
+        List<Loan> result = repository.findAfter(bookIsbn("isbn-0").or(customer("Fulano")), 0L, 10);
+
+        assertThat(isbns(result)).hasSize(LOANS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("A busca em fatia de empréstimos deve carregar os livros com uma única consulta.")
+    public void findSliceFetchesBooksTest() {
+        Slice<Loan> result = repository.findSlice(customer("Fulano"), PageRequest.of(0, 10));
+
+        assertThat(isbns(result.getContent())).hasSize(LOANS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("A busca de empréstimos vencidos deve ler apenas as colunas da projeção, sem carregar entidades.")
+    public void findNewlyOverdueLoadsNoEntitiesTest() {
+        LocalDate today = LocalDate.now();
+        List<LateLoan> result = repository.findNewlyOverdue(today.minusDays(2), today, 0, 1, PageRequest.of(0, 10));
+
+        assertThat(result).extracting(LateLoan::getCustomerEmail).hasSize(LOANS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    private List<String> isbns(List<Loan> loans) {
+        return loans.stream().map(loan -> loan.getBook().getIsbn()).collect(Collectors.toList());
+    }
+}
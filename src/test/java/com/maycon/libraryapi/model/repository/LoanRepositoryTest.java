@@ -2,6 +2,8 @@ package com.maycon.libraryapi.model.repository;
 
 import com.maycon.libraryapi.api.model.entity.Book;
 import com.maycon.libraryapi.api.model.entity.Loan;
+import com.maycon.libraryapi.api.model.projection.LateLoan;
+import com.maycon.libraryapi.api.model.projection.LoanView;
 import com.maycon.libraryapi.api.model.repository.LoanRepository;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -11,12 +13,21 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
 
+import static com.maycon.libraryapi.api.model.repository.LoanSpecifications.bookIsbn;
+import static com.maycon.libraryapi.api.model.repository.LoanSpecifications.customer;
+import static com.maycon.libraryapi.api.model.repository.LoanSpecifications.loanedFrom;
+import static com.maycon.libraryapi.api.model.repository.LoanSpecifications.loanedUntil;
+import static com.maycon.libraryapi.api.model.repository.LoanSpecifications.returned;
 import static com.maycon.libraryapi.model.repository.BookRepositoryTest.createNewBook;
 import static org.assertj.core.api.Assertions.as;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -33,55 +44,162 @@ public class LoanRepositoryTest {
     private TestEntityManager entityManager;
 
     @Test
-    @DisplayName("Deve verificar se existe empréstimo não devolvido para o livro.")
-    public void existsByBookAndNotReturnedTest() {
+    @DisplayName("Deve buscar empréstimo pelo isbn do livro ou customer.")
+    public void findByBookIsbnOrCustomerTest() {
+        Loan loan = creatAndPersistLoan(LocalDate.now());
+        Loan other = creatAndPersistLoan("456", LocalDate.now());
+        other.setCustomer("Ciclano");
 
-       Loan loan = creatAndPersistLoan(LocalDate.now());
-       Book book = loan.getBook();
+        Slice<Loan> byIsbn = repository.findSlice(bookIsbn("123"), PageRequest.of(0, 10));
+        Slice<Loan> byCustomer = repository.findSlice(customer("Ciclano"), PageRequest.of(0, 10));
+        Slice<Loan> byEither = repository.findSlice(bookIsbn("123").or(customer("Ciclano")), PageRequest.of(0, 10, Sort.by("id")));
+
+        assertThat(byIsbn.getContent()).containsExactly(loan);
+        assertThat(byCustomer.getContent()).containsExactly(other);
+        assertThat(byEither.getContent()).containsExactly(loan, other);
+        assertThat(repository.count(bookIsbn("999"))).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve buscar empréstimos pelo isbn do livro ou customer já no formato da resposta.")
+    public void findViewsByBookIsbnOrCustomerTest() {
+        Loan loan = creatAndPersistLoan(LocalDate.now());
 
-        boolean exists = repository.existsByBookAndNotReturned(book);
+        List<LoanView> result = repository.findViews(bookIsbn("123").or(customer("Fulano")), PageRequest.of(0, 10));
 
-        assertThat(exists).isTrue();
+        assertThat(result).hasSize(1);
+        LoanView view = result.get(0);
+        assertThat(view.getId()).isEqualTo(loan.getId());
+        assertThat(view.getCustomerEmail()).isEqualTo(loan.getCustomerEmail());
+        assertThat(view.getBookId()).isEqualTo(loan.getBook().getId());
+        assertThat(view.getBookIsbn()).isEqualTo("123");
     }
 
     @Test
-    @DisplayName("Deve buscar empréstimo pelo isbn do livro ou customer.")
-    public void findByBookIsbnCustomerTest() {
+    @DisplayName("Deve buscar os empréstimos de um livro já no formato da resposta.")
+    public void findViewsByBookTest() {
         Loan loan = creatAndPersistLoan(LocalDate.now());
-        Page<Loan> result = repository.findByBookIsbnOrCustomer("123", "Fulano", PageRequest.of(0, 10));
+        creatAndPersistLoan("456", LocalDate.now());
 
-        assertThat(result.getContent()).hasSize(1);
-        assertThat(result.getContent()).contains(loan);
-        assertThat(result.getPageable().getPageSize()).isEqualTo(10);
-        assertThat(result.getPageable().getPageNumber()).isEqualTo(0);
+        Page<LoanView> result = repository.findViewsByBook(loan.getBook(), PageRequest.of(0, 10));
+
+        assertThat(result.getContent()).extracting(LoanView::getId).containsExactly(loan.getId());
         assertThat(result.getTotalElements()).isEqualTo(1);
     }
 
     @Test
-    @DisplayName("Deve obter empréstimos cujo a data do empréstimo for menor ou igual a tres dias atras e nao retornados.")
-    public void findByLoanDateLessThanAndNotReturnedTest(){
-        Loan loan = creatAndPersistLoan(LocalDate.now().minusDays(5));
+    @DisplayName("Deve buscar uma fatia de empréstimos pelo customer e contar à parte.")
+    public void findSliceByCustomerTest() {
+        creatAndPersistLoan("123", LocalDate.now());
+        creatAndPersistLoan("456", LocalDate.now());
 
-        List<Loan> result = repository.findByLoanDateLessThanAndNotReturned(LocalDate.now().minusDays(4));
+        Slice<Loan> result = repository.findSlice(customer("Fulano"), PageRequest.of(0, 1));
 
-        assertThat(result).hasSize(1).contains(loan);
+        assertThat(result.getContent()).hasSize(1);
+        assertThat(result.hasNext()).isTrue();
+        assertThat(repository.count(customer("Fulano"))).isEqualTo(2);
     }
 
     @Test
-    @DisplayName("Deve retornar vazio quando nãoo houver empréstimos atrasados.")
-    public void notFindByLoanDateLessThanAndNotReturnedTest(){
+    @DisplayName("Deve buscar empréstimos pelo customer a partir do último id lido.")
+    public void findAfterTest() {
+        Loan first = creatAndPersistLoan("123", LocalDate.now());
+        Loan second = creatAndPersistLoan("456", LocalDate.now());
+
+        List<Loan> firstChunk = repository.findAfter(customer("Fulano"), 0L, 1);
+        List<Loan> secondChunk = repository.findAfter(customer("Fulano"), first.getId(), 1);
+        List<Loan> lastChunk = repository.findAfter(customer("Fulano"), second.getId(), 1);
+
+        assertThat(firstChunk).containsExactly(first);
+        assertThat(secondChunk).containsExactly(second);
+        assertThat(lastChunk).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve filtrar empréstimos por período e situação da devolução.")
+    public void findByLoanDateAndReturnedTest() {
+        creatAndPersistLoan("123", LocalDate.now().minusDays(10));
+        Loan recent = creatAndPersistLoan("456", LocalDate.now().minusDays(2));
+        Loan returned = creatAndPersistLoan("789", LocalDate.now().minusDays(2));
+        returned.setReturned(true);
+
+        List<Loan> recentOpen = repository.findAll(
+                loanedFrom(LocalDate.now().minusDays(5)).and(loanedUntil(LocalDate.now())).and(returned(false)));
+        List<Loan> closed = repository.findAll(returned(true));
+
+        assertThat(recentOpen).containsExactly(recent);
+        assertThat(closed).containsExactly(returned);
+        assertThat(repository.count(loanedUntil(LocalDate.now().minusDays(5)))).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve obter apenas os empréstimos que venceram dentro da janela e ainda não foram notificados.")
+    public void findNewlyOverdueTest(){
+        LocalDate today = LocalDate.now();
+        Loan first = creatAndPersistLoan("123", today.minusDays(4));
+        Loan second = creatAndPersistLoan("456", today.minusDays(5));
+        creatAndPersistLoan("789", today.minusDays(6));
+        creatAndPersistLoan("012", today);
+
+        List<LateLoan> firstChunk = repository.findNewlyOverdue(today.minusDays(2), today, 0, 1, PageRequest.of(0, 1));
+        int marked = repository.markOverdueNotified(Arrays.asList(first.getId()), LocalDateTime.now());
+        entityManager.clear();
+        List<LateLoan> secondChunk = repository.findNewlyOverdue(today.minusDays(2), today, 0, 1, PageRequest.of(0, 1));
+        repository.markOverdueNotified(Arrays.asList(second.getId()), LocalDateTime.now());
+        entityManager.clear();
+        List<LateLoan> lastChunk = repository.findNewlyOverdue(today.minusDays(2), today, 0, 1, PageRequest.of(0, 1));
+
+        assertThat(firstChunk).extracting(LateLoan::getId).containsExactly(first.getId());
+        assertThat(firstChunk.get(0).getCustomerEmail()).isEqualTo(first.getCustomerEmail());
+        assertThat(marked).isEqualTo(1);
+        assertThat(secondChunk).extracting(LateLoan::getId).containsExactly(second.getId());
+        assertThat(lastChunk).isEmpty();
+        assertThat(repository.countOverdue(today)).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Deve dividir os empréstimos vencidos entre as partições pelo id.")
+    public void findNewlyOverdueInShardsTest(){
+        LocalDate today = LocalDate.now();
+        Loan first = creatAndPersistLoan("123", today.minusDays(4));
+        Loan second = creatAndPersistLoan("456", today.minusDays(4));
+
+        List<LateLoan> firstShard = repository.findNewlyOverdue(today.minusDays(1), today,
+                (int) (first.getId() % 2), 2, PageRequest.of(0, 10));
+        List<LateLoan> secondShard = repository.findNewlyOverdue(today.minusDays(1), today,
+                (int) (second.getId() % 2), 2, PageRequest.of(0, 10));
+
+        assertThat(firstShard).extracting(LateLoan::getId).containsExactly(first.getId());
+        assertThat(secondShard).extracting(LateLoan::getId).containsExactly(second.getId());
+    }
+
+    @Test
+    @DisplayName("Deve marcar um empréstimo como devolvido num único update.")
+    public void markReturnedTest() {
         Loan loan = creatAndPersistLoan(LocalDate.now());
+        entityManager.flush();
+        entityManager.clear();
 
-        List<Loan> result = repository.findByLoanDateLessThanAndNotReturned(LocalDate.now().minusDays(4));
+        int updated = repository.markReturned(loan.getId(), true);
+        int missing = repository.markReturned(loan.getId() + 1, true);
+        entityManager.clear();
 
-        assertThat(result).isEmpty();
+        assertThat(updated).isEqualTo(1);
+        assertThat(missing).isZero();
+        assertThat(entityManager.find(Loan.class, loan.getId()).getReturned()).isTrue();
+        assertThat(repository.countOpen()).isZero();
     }
 
     public Loan creatAndPersistLoan(LocalDate loanDate){
-        Book book = createNewBook("123");
+        return creatAndPersistLoan("123", loanDate);
+    }
+
+    public Loan creatAndPersistLoan(String isbn, LocalDate loanDate){
+        Book book = createNewBook(isbn);
         entityManager.persist(book);
 
-        Loan loan = Loan.builder().book(book).customer("Fulano").loanDate(loanDate).build();
+        Loan loan = Loan.builder().book(book).customer("Fulano").customerEmail("fulano@email.com")
+                .loanDate(loanDate).dueDate(loanDate.plusDays(4)).build();
         entityManager.persist(loan);
 
         return loan;
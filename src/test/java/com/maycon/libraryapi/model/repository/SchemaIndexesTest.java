@@ -0,0 +1,88 @@
+package com.maycon.libraryapi.model.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+public class SchemaIndexesTest {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("A busca de livro pelo isbn deve usar o índice único de isbn.")
+    public void findByIsbnUsesIndexTest() {
+        assertThat(explain("select id from book where isbn = '123'"))
+                .containsIgnoringCase("UX_BOOK_ISBN");
+    }
+
+    @Test
+    @DisplayName("A atualização do índice de busca deve ler os livros alterados pelo índice de data de alteração.")
+    public void findChangedBooksUsesIndexTest() {
+        assertThat(explain("select id from book where updated_at > timestamp '2020-11-10 10:00:00' " +
+                "order by updated_at, id"))
+                .containsIgnoringCase("IX_BOOK_UPDATED_AT");
+    }
+
+    @Test
+    @DisplayName("A busca de empréstimos pelo cliente deve usar o índice de cliente.")
+    public void findByCustomerUsesIndexTest() {
+        assertThat(explain("select id from loan where customer = 'Fulano'"))
+                .containsIgnoringCase("IX_LOAN_CUSTOMER");
+    }
+
+    @Test
+    @DisplayName("A busca de empréstimos pelo isbn deve resolver o livro pelo índice de isbn e usar o índice de livro.")
+    public void findByBookIsbnUsesIndexesTest() {
+        assertThat(explain("select id from loan where id_book in (select id from book where isbn = '123')"))
+                .containsIgnoringCase("IX_LOAN_BOOK")
+                .containsIgnoringCase("UX_BOOK_ISBN");
+    }
+
+    @Test
+    @DisplayName("A busca de empréstimos atrasados deve usar o índice de data do empréstimo.")
+    public void findLateLoansUsesIndexTest() {
+        assertThat(explain("select id, customer_email from loan where loan_date <= date '2020-11-10' " +
+                "and (returned is null or returned = false)"))
+                .containsIgnoringCase("IX_LOAN_LOAN_DATE_RETURNED");
+    }
+
+    @Test
+    @DisplayName("A varredura de empréstimos vencidos deve usar o índice de vencimento.")
+    public void findNewlyOverdueUsesIndexTest() {
+        assertThat(explain("select id, customer_email from loan where due_date > date '2020-11-09' " +
+                "and due_date <= date '2020-11-10' and overdue_notified_at is null " +
+                "and (returned is null or returned = false)"))
+                .containsIgnoringCase("IX_LOAN_DUE_DATE");
+    }
+
+    @Test
+    @DisplayName("A varredura de uma partição deve continuar usando o índice de vencimento.")
+    public void findNewlyOverdueInShardUsesIndexTest() {
+        assertThat(explain("select id, customer_email from loan where due_date > date '2020-11-09' " +
+                "and due_date <= date '2020-11-10' and overdue_notified_at is null " +
+                "and (returned is null or returned = false) and mod(id, 4) = 1"))
+                .containsIgnoringCase("IX_LOAN_DUE_DATE");
+    }
+
+    @Test
+    @DisplayName("A busca de notificações pendentes deve usar o índice de pendências.")
+    public void findPendingNotificationsUsesIndexTest() {
+        assertThat(explain("select id from late_loan_notification where sent_at is null and attempts < 5"))
+                .containsIgnoringCase("IX_LATE_LOAN_NOTIFICATION_PENDING");
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.queryForObject("explain " + sql, String.class);
+    }
+}
@@ -0,0 +1,92 @@
+package com.maycon.libraryapi.service;
+
+import com.maycon.libraryapi.api.model.entity.Book;
+import com.maycon.libraryapi.api.service.impl.BookSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BookSearchIndexTest {
+
+    BookSearchIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new BookSearchIndex();
+        index.index(book(1l, "As aventuras de Tom Sawyer", "Mark Twain", "001"));
+        index.index(book(2l, "Memórias Póstumas de Brás Cubas", "Machado de Assis", "002"));
+        index.index(book(3l, "Aventuras na Programação", "Fulano", "003"));
+        index.index(book(4l, "Dom Casmurro", "Machado de Assis", "004"));
+    }
+
+    @Test
+    @DisplayName("Deve buscar por termos completos ignorando acentos e caixa.")
+    public void searchExactTermsTest() {
+        assertThat(index.search("memorias POSTUMAS", 10)).containsExactly(2l);
+    }
+
+    @Test
+    @DisplayName("Deve exigir todos os termos da busca.")
+    public void searchAllTermsTest() {
+        assertThat(index.search("machado casmurro", 10)).containsExactly(4l);
+        assertThat(index.search("machado sawyer", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve buscar pelo prefixo, priorizando o termo completo.")
+    public void searchPrefixTest() {
+        index.index(book(5l, "Aventureiros", "Ciclano", "005"));
+
+        assertThat(index.search("aventuras", 10)).containsExactly(1l, 3l);
+        assertThat(index.search("aventur", 10)).containsExactlyInAnyOrder(1l, 3l, 5l);
+    }
+
+    @Test
+    @DisplayName("Deve tolerar um erro de digitação.")
+    public void searchTypoTest() {
+        assertThat(index.search("casmuro", 10)).containsExactly(4l);
+        assertThat(index.search("twian", 10)).containsExactly(1l);
+    }
+
+    @Test
+    @DisplayName("Deve dar mais relevância ao título do que ao autor.")
+    public void searchRelevanceTest() {
+        index.index(book(5l, "Vida de Machado", "Ciclano", "005"));
+
+        assertThat(index.search("machado", 10).get(0)).isEqualTo(5l);
+    }
+
+    @Test
+    @DisplayName("Deve atualizar e remover livros do índice.")
+    public void reindexAndRemoveTest() {
+        index.index(book(4l, "Quincas Borba", "Machado de Assis", "004"));
+        index.remove(2l);
+
+        assertThat(index.search("casmurro", 10)).isEmpty();
+        assertThat(index.search("quincas", 10)).containsExactly(4l);
+        assertThat(index.search("machado", 10)).containsExactly(4l);
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Deve reconhecer a versão já indexada de um livro.")
+    public void indexedVersionTest() {
+        Book book = book(5l, "Quincas Borba", "Machado de Assis", "005");
+        book.setVersion(0l);
+        index.index(book);
+
+        Book edited = book(5l, "Quincas Borba", "Machado de Assis", "005");
+        edited.setVersion(1l);
+
+        assertThat(index.isIndexed(book)).isTrue();
+        assertThat(index.isIndexed(edited)).isFalse();
+        index.remove(5l);
+        assertThat(index.isIndexed(book)).isFalse();
+    }
+
+    private Book book(Long id, String title, String author, String isbn) {
+        return Book.builder().id(id).title(title).author(author).isbn(isbn).build();
+    }
+}
@@ -0,0 +1,187 @@
+package com.maycon.libraryapi.service;
+
+import com.maycon.libraryapi.api.model.entity.Book;
+import com.maycon.libraryapi.api.model.repository.BookRepository;
+import com.maycon.libraryapi.api.service.BookService;
+import com.maycon.libraryapi.api.service.impl.BookSearchIndex;
+import com.maycon.libraryapi.api.service.impl.BookServiceImpl;
+import com.maycon.libraryapi.config.CacheConfig;
+import com.maycon.libraryapi.exception.BusinessException;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.transaction.TestTransaction;
+
+import static com.maycon.libraryapi.model.repository.BookRepositoryTest.createNewBook;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Import({BookServiceImpl.class, BookSearchIndex.class, CacheConfig.class})
+public class BookServiceCacheTest {
+
+    @Autowired
+    BookService service;
+
+    @Autowired
+    BookRepository repository;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    BookSearchIndex searchIndex;
+
+    @BeforeEach
+    public void setUp() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    @DisplayName("Deve guardar em cache a busca pelo isbn, inclusive quando o livro não existe.")
+    public void cacheNegativeLookupTest() {
+        assertThat(service.getBookByIsbn("123")).isEmpty();
+        assertThat(repository.existsByIsbn("123")).isFalse();
+
+        entityManager.persist(createNewBook("123"));
+
+        assertThat(service.getBookByIsbn("123")).isEmpty();
+        assertThat(repository.existsByIsbn("123")).isFalse();
+        assertThat(cache(CacheConfig.BOOKS_BY_ISBN).get("123")).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Deve guardar em cache apenas o id do livro, nunca a entidade.")
+    public void cacheIdOnlyTest() {
+        Book book = entityManager.persist(createNewBook("123"));
+
+        assertThat(service.getBookByIsbn("123")).contains(book);
+
+        assertThat(cache(CacheConfig.BOOKS_BY_ISBN).get("123").get()).isEqualTo(book.getId());
+    }
+
+    @Test
+    @DisplayName("Deve invalidar o cache do isbn ao salvar um livro.")
+    public void evictOnSaveTest() {
+        assertThat(service.getBookByIsbn("123")).isEmpty();
+
+        Book saved = service.save(createNewBook("123"));
+
+        assertThat(cache(CacheConfig.BOOKS_BY_ISBN).get("123")).isNull();
+        assertThat(cache(CacheConfig.ISBN_EXISTS).get("123")).isNull();
+        assertThat(service.getBookByIsbn("123")).contains(saved);
+        assertThat(repository.existsByIsbn("123")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve recusar um isbn duplicado pelo índice único mesmo com o cache de existência desatualizado.")
+    public void rejectDuplicateWithStaleCacheTest() {
+        assertThat(repository.existsByIsbn("123")).isFalse();
+        entityManager.persist(createNewBook("123"));
+
+        Throwable exception = Assertions.catchThrowable(() -> service.save(createNewBook("123")));
+
+        assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Isbn já cadastrado.");
+    }
+
+    @Test
+    @DisplayName("Deve invalidar o cache do isbn ao atualizar um livro.")
+    public void evictOnUpdateTest() {
+        Book book = entityManager.persist(createNewBook("123"));
+        assertThat(service.getBookByIsbn("123")).isPresent();
+
+        book.setTitle("Novas aventuras");
+        service.update(book);
+
+        assertThat(cache(CacheConfig.BOOKS_BY_ISBN).get("123")).isNull();
+        assertThat(service.getBookByIsbn("123").get().getTitle()).isEqualTo("Novas aventuras");
+    }
+
+    @Test
+    @DisplayName("Deve invalidar o cache do isbn ao deletar um livro.")
+    public void evictOnDeleteTest() {
+        Book book = entityManager.persist(createNewBook("123"));
+        assertThat(service.getBookByIsbn("123")).isPresent();
+        assertThat(repository.existsByIsbn("123")).isTrue();
+
+        service.delete(book);
+
+        assertThat(service.getBookByIsbn("123")).isEmpty();
+        assertThat(repository.existsByIsbn("123")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Não deve guardar em cache a versão, para o ETag refletir alterações feitas por outro nó.")
+    public void versionNotCachedTest() {
+        Book book = entityManager.persist(createNewBook("123"));
+        entityManager.flush();
+        Long version = service.getVersion(book.getId()).get();
+
+        repository.updateDetails(book.getId(), "Novas aventuras", "Fulano");
+        entityManager.clear();
+
+        assertThat(service.getVersion(book.getId())).contains(version + 1);
+    }
+
+    @Test
+    @DisplayName("Deve guardar em cache a contagem estimada por filtro.")
+    public void cacheEstimatedCountTest() {
+        entityManager.persist(createNewBook("123"));
+        Book filter = Book.builder().author("fulano").build();
+        assertThat(service.estimateCount(filter)).isEqualTo(1);
+
+        entityManager.persist(createNewBook("456"));
+
+        assertThat(service.estimateCount(filter)).isEqualTo(1);
+        assertThat(service.estimateCount(Book.builder().author("fulano").build())).isEqualTo(1);
+        assertThat(service.estimateCount(Book.builder().isbn("456").build())).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve indexar o livro para a busca somente após o commit, nunca quando a transação for desfeita.")
+    public void indexOnlyAfterCommitTest() {
+        Book book = createNewBook("123");
+        book.setTitle("Quincas Borba");
+
+        service.save(book);
+        assertThat(searchIndex.search("quincas", 10)).isEmpty();
+
+        TestTransaction.end();
+
+        assertThat(searchIndex.search("quincas", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve levar ao índice de outro nó a edição de título feita neste nó.")
+    public void reindexEditFromAnotherNodeTest() {
+        BookService otherNode = new BookServiceImpl(repository, new BookSearchIndex());
+        Book book = entityManager.persist(createNewBook("123"));
+        entityManager.flush();
+        assertThat(otherNode.reindex()).isEqualTo(1);
+
+        service.updateDetails(book.getId(), "Quincas Borba", "Machado de Assis", null);
+        entityManager.clear();
+
+        assertThat(otherNode.reindex()).isEqualTo(1);
+        assertThat(otherNode.search("quincas", 10)).extracting(Book::getId).containsExactly(book.getId());
+        assertThat(otherNode.search("aventuras", 10)).isEmpty();
+    }
+
+    private Cache cache(String name) {
+        return cacheManager.getCache(name);
+    }
+}
@@ -1,8 +1,12 @@
 package com.maycon.libraryapi.service;
 
+import com.maycon.libraryapi.api.DTO.BookDTO;
+import com.maycon.libraryapi.api.DTO.BookImportResultDTO;
 import com.maycon.libraryapi.api.model.entity.Book;
+import com.maycon.libraryapi.api.model.projection.BookLookup;
 import com.maycon.libraryapi.api.model.repository.BookRepository;
 import com.maycon.libraryapi.api.service.BookService;
+import com.maycon.libraryapi.api.service.impl.BookSearchIndex;
 import com.maycon.libraryapi.api.service.impl.BookServiceImpl;
 import com.maycon.libraryapi.exception.BusinessException;
 import org.assertj.core.api.Assertions;
@@ -12,19 +16,31 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.as;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(SpringExtension.class)
@@ -38,7 +54,7 @@ public class BookServiceTest {
 
     @BeforeEach
     public void setUp() {
-        this.service = new BookServiceImpl(repository) {
+        this.service = new BookServiceImpl(repository, new BookSearchIndex()) {
         };
     }
 
@@ -81,6 +97,21 @@ public class BookServiceTest {
         Mockito.verify(repository, Mockito.never()).save(book);
     }
 
+    @Test
+    @DisplayName("Lançar erro de negócio quando outro cadastro do mesmo isbn vencer a corrida pelo índice único.")
+    public void shouldNotSaveBookWithConcurrentDuplicatedISBN() {
+        Book book = createValidBook();
+        when(repository.existsByIsbn(Mockito.anyString())).thenReturn(false);
+        when(repository.save(book)).thenThrow(new DataIntegrityViolationException(
+                "Unique index or primary key violation: \"PUBLIC.UX_BOOK_ISBN_INDEX_1 ON PUBLIC.BOOK(ISBN)\""));
+
+        Throwable exception = Assertions.catchThrowable(() -> service.save(book));
+
+        assertThat(exception)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Isbn já cadastrado.");
+    }
+
     @Test
     @DisplayName("Deve obter um livro por id.")
     public void getByIdTest() {
@@ -164,6 +195,49 @@ public class BookServiceTest {
 
     }
 
+    @Test
+    @DisplayName("Deve atualizar título e autor com um único update e devolver o livro atualizado.")
+    public void updateDetailsTest() {
+        Book updated = createValidBook();
+        updated.setId(1l);
+        updated.setVersion(5l);
+        when(repository.updateDetails(1l, "As aventuras", "Fulano", Collections.singleton(4l))).thenReturn(1);
+        when(repository.findById(1l)).thenReturn(Optional.of(updated));
+
+        Optional<Book> book = service.updateDetails(1l, "As aventuras", "Fulano", Collections.singleton(4l));
+
+        assertThat(book).contains(updated);
+        verify(repository, never()).save(Mockito.any(Book.class));
+    }
+
+    @Test
+    @DisplayName("Deve distinguir livro inexistente de versão antiga quando o update não altera linhas.")
+    public void updateDetailsStaleOrMissingTest() {
+        when(repository.updateDetails(Mockito.anyLong(), Mockito.any(), Mockito.any(), Mockito.anyCollection())).thenReturn(0);
+        when(repository.existsById(1l)).thenReturn(true);
+        when(repository.existsById(2l)).thenReturn(false);
+
+        Throwable stale = catchThrowable(() -> service.updateDetails(1l, "As aventuras", "Fulano", Collections.singleton(4l)));
+        Optional<Book> missing = service.updateDetails(2l, "As aventuras", "Fulano", Collections.singleton(4l));
+
+        assertThat(stale).isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(missing).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve deletar um livro pelo id com um único delete.")
+    public void deleteByIdTest() {
+        when(repository.deleteBookById(1l)).thenReturn(1);
+        when(repository.existsById(1l)).thenReturn(true);
+        when(repository.existsById(2l)).thenReturn(false);
+
+        assertThat(service.deleteById(1l, null)).isTrue();
+        assertThat(service.deleteById(2l, null)).isFalse();
+        assertThat(catchThrowable(() -> service.deleteById(1l, Collections.emptySet())))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        verify(repository, never()).deleteBookByIdAndVersionIn(Mockito.anyLong(), Mockito.anyCollection());
+    }
+
     @Test
     @DisplayName("Deve filtrar livros pelas propriedades")
     public void findBookTest() {
@@ -183,11 +257,29 @@ public class BookServiceTest {
         assertThat(result.getPageable().getPageSize()).isEqualTo(10);
     }
 
+    @Test
+    @DisplayName("Deve filtrar livros a partir de um cursor, sem contar o total")
+    public void findBookAfterTest() {
+        Book first = createValidBook();
+        first.setId(1l);
+        Book second = createValidBook();
+        second.setId(2l);
+        when(repository.findAfter(Mockito.any(Example.class), Mockito.eq(0L), Mockito.eq(2)))
+                .thenReturn(Arrays.asList(first, second));
+
+        Slice<Book> result = service.findAfter(first, null, 1);
+
+        assertThat(result.getContent()).containsExactly(first);
+        assertThat(result.hasNext()).isTrue();
+        verify(repository, never()).count();
+    }
+
     @Test
     @DisplayName("Deve obter um livro pelo isbn")
     public void getBookByIsbnTest(){
         String isbn = "1230";
-        when(repository.findByIsbn(isbn)).thenReturn(Optional.of(Book.builder().id(1l).isbn(isbn).build()));
+        when(repository.findIdByIsbn(isbn)).thenReturn(Optional.of(1l));
+        when(repository.findById(1l)).thenReturn(Optional.of(Book.builder().id(1l).isbn(isbn).build()));
 
         Optional<Book> book = service.getBookByIsbn(isbn);
 
@@ -195,8 +287,131 @@ public class BookServiceTest {
         assertThat(book.get().getId()).isEqualTo(1l);
         assertThat(book.get().getIsbn()).isEqualTo(isbn);
 
-        verify(repository, times(1)).findByIsbn(isbn);
+        verify(repository, times(1)).findIdByIsbn(isbn);
+    }
+
+    @Test
+    @DisplayName("Deve importar livros em blocos rejeitando linhas inválidas e isbns repetidos.")
+    @SuppressWarnings("unchecked")
+    public void importBooksTest() {
+        ReflectionTestUtils.setField(service, "importChunkSize", 2);
+        List<BookDTO> rows = Arrays.asList(
+                importRow("001"),
+                importRow("002"),
+                importRow("003"),
+                BookDTO.builder().title("Sem isbn").author("Fulano").build(),
+                importRow("003"));
+        when(repository.findExistingIsbns(Mockito.anyCollection())).thenReturn(Collections.emptySet());
+        when(repository.findExistingIsbns(Collections.singleton("003"))).thenReturn(Collections.singleton("003"));
+
+        BookImportResultDTO result = service.importBooks(rows.iterator());
+
+        assertThat(result.getAccepted()).isEqualTo(2);
+        assertThat(result.getRejected()).isEqualTo(3);
+        assertThat(result.getRejections()).extracting("row").containsExactly(4l, 5l, 3l);
+        assertThat(result.getRejections().get(2).getReason()).isEqualTo("Isbn já cadastrado.");
+        verify(repository, times(1)).insertAll(Mockito.anyList());
+    }
+
+    @Test
+    @DisplayName("Deve importar linha a linha quando o lote colidir com um isbn inserido concorrentemente.")
+    public void importBooksWithConcurrentDuplicateTest() {
+        when(repository.findExistingIsbns(Mockito.anyCollection())).thenReturn(Collections.emptySet());
+        Mockito.doThrow(new DuplicateKeyException("ux_book_isbn"))
+                .when(repository).insertAll(Mockito.argThat(books -> books.size() == 2));
+        Mockito.doThrow(new DuplicateKeyException("ux_book_isbn"))
+                .when(repository).insertAll(Collections.singletonList(createImportedBook("002")));
+
+        BookImportResultDTO result = service.importBooks(Arrays.asList(importRow("001"), importRow("002")).iterator());
+
+        assertThat(result.getAccepted()).isEqualTo(1);
+        assertThat(result.getRejections()).extracting("isbn").containsExactly("002");
+    }
+
+    @Test
+    @DisplayName("Deve indexar os livros alterados desde a última leitura e buscá-los por relevância.")
+    public void reindexAndSearchTest() {
+        ReflectionTestUtils.setField(service, "searchChunkSize", 2);
+        LocalDateTime changedAt = LocalDateTime.of(2020, 11, 10, 10, 0);
+        Book first = indexedBook(1l, "Aventuras", "Fulano", changedAt);
+        Book second = indexedBook(2l, "Memórias", "Aventureiro", changedAt);
+        Book third = indexedBook(3l, "Dom Casmurro", "Machado", changedAt.plusSeconds(1));
+        when(repository.findChangedAfter(LocalDateTime.of(1970, 1, 1, 0, 0), 0L, PageRequest.of(0, 2)))
+                .thenReturn(Arrays.asList(first, second));
+        when(repository.findChangedAfter(changedAt, 2L, PageRequest.of(0, 2))).thenReturn(Arrays.asList(third));
+        when(repository.findChangedAfter(changedAt.plusSeconds(1).minusMinutes(10), 0L, PageRequest.of(0, 2)))
+                .thenReturn(Arrays.asList(first, second));
+        when(repository.findAllById(Arrays.asList(1l, 2l))).thenReturn(Arrays.asList(second, first));
+
+        int indexed = service.reindex();
+        List<Book> found = service.search("aventur", 10);
+
+        assertThat(indexed).isEqualTo(3);
+        assertThat(found).containsExactly(first, second);
+        assertThat(service.reindex()).isZero();
     }
 
+    @Test
+    @DisplayName("Deve reindexar um livro editado em outro nó, pela data de alteração gravada pelo banco.")
+    public void reindexRemoteEditTest() {
+        LocalDateTime changedAt = LocalDateTime.of(2020, 11, 10, 10, 0);
+        Book book = indexedBook(1l, "Dom Casmurro", "Machado", changedAt);
+        Book edited = indexedBook(1l, "Quincas Borba", "Machado", changedAt.plusSeconds(5));
+        edited.setVersion(1l);
+        when(repository.findChangedAfter(Mockito.eq(LocalDateTime.of(1970, 1, 1, 0, 0)), Mockito.eq(0L), Mockito.any(Pageable.class)))
+                .thenReturn(Collections.singletonList(book));
+        when(repository.findChangedAfter(Mockito.eq(changedAt.minusMinutes(10)), Mockito.eq(0L), Mockito.any(Pageable.class)))
+                .thenReturn(Collections.singletonList(edited));
+        when(repository.findAllById(Collections.singletonList(1l))).thenReturn(Collections.singletonList(edited));
+
+        assertThat(service.reindex()).isEqualTo(1);
+        assertThat(service.reindex()).isEqualTo(1);
+
+        assertThat(service.search("casmurro", 10)).isEmpty();
+        assertThat(service.search("quincas", 10)).containsExactly(edited);
+    }
 
+    @Test
+    @DisplayName("Deve tirar do índice um livro apagado em outro nó quando a busca não o encontrar no banco.")
+    public void dropRemotelyDeletedBookTest() {
+        Book book = indexedBook(1l, "Dom Casmurro", "Machado", LocalDateTime.of(2020, 11, 10, 10, 0));
+        when(repository.findChangedAfter(Mockito.any(LocalDateTime.class), Mockito.eq(0L), Mockito.any(Pageable.class)))
+                .thenReturn(Collections.singletonList(book));
+        service.reindex();
+
+        assertThat(service.search("casmurro", 10)).isEmpty();
+        when(repository.findAllById(Collections.singletonList(1l))).thenReturn(Collections.singletonList(book));
+        assertThat(service.search("casmurro", 10)).isEmpty();
+    }
+
+    private Book indexedBook(Long id, String title, String author, LocalDateTime updatedAt) {
+        return Book.builder().id(id).title(title).author(author).isbn("00" + id).version(0l).updatedAt(updatedAt).build();
+    }
+
+    @Test
+    @DisplayName("Deve buscar muitos isbns em blocos, com uma consulta por bloco e sem repetir isbns.")
+    public void lookupInChunksTest() {
+        ReflectionTestUtils.setField(service, "lookupChunkSize", 1000);
+        List<String> isbns = IntStream.range(0, 2500).mapToObj(String::valueOf).collect(Collectors.toList());
+        List<String> requested = new ArrayList<>(isbns);
+        requested.addAll(isbns.subList(0, 100));
+        BookLookup lookup = Mockito.mock(BookLookup.class);
+        when(repository.findLookupsByIsbnIn(Mockito.anyCollection())).thenReturn(Collections.singletonList(lookup));
+
+        List<BookLookup> result = service.lookup(requested);
+
+        assertThat(result).hasSize(3);
+        verify(repository).findLookupsByIsbnIn(isbns.subList(0, 1000));
+        verify(repository).findLookupsByIsbnIn(isbns.subList(1000, 2000));
+        verify(repository).findLookupsByIsbnIn(isbns.subList(2000, 2500));
+        verify(repository, times(3)).findLookupsByIsbnIn(Mockito.anyCollection());
+    }
+
+    private BookDTO importRow(String isbn) {
+        return BookDTO.builder().title("As aventuras").author("Fulano").isbn(isbn).build();
+    }
+
+    private Book createImportedBook(String isbn) {
+        return Book.builder().title("As aventuras").author("Fulano").isbn(isbn).build();
+    }
 }
@@ -0,0 +1,139 @@
+package com.maycon.libraryapi.service;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.maycon.libraryapi.api.service.MailDispatchReport;
+import com.maycon.libraryapi.api.service.impl.EmailServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.mail.internet.MimeMessage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EmailServiceTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    EmailServiceImpl service;
+
+    @AfterEach
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    @DisplayName("Deve enviar um email por destinatário em lotes.")
+    public void sendMailsInBatchesTest() throws Exception {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost(ServerSetupTest.SMTP.getBindAddress());
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+        service = createService(mailSender);
+
+        List<String> mails = IntStream.rangeClosed(1, 7)
+                .mapToObj(i -> "customer" + i + "@email.com")
+                .collect(Collectors.toList());
+
+        MailDispatchReport report = service.sendMails("Atenção!", mails);
+
+        assertThat(report.getSent()).isEqualTo(7);
+        assertThat(report.getFailed()).isZero();
+        assertThat(report.getBatches()).hasSize(3);
+        assertThat(report.getBatches().get(2).getRecipients()).isEqualTo(1);
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertThat(received).hasSize(7);
+        assertThat(received[0].getAllRecipients()).hasSize(1);
+        assertThat(received[0].getSubject()).isEqualTo("Livro com empréstimo atrasado.");
+    }
+
+    @Test
+    @DisplayName("Deve reenviar somente as mensagens que falharam.")
+    public void retryFailedMessagesTest() {
+        List<Integer> attempts = new ArrayList<>();
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl() {
+            @Override
+            protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) {
+                attempts.add(mimeMessages.length);
+                if (attempts.size() == 1) {
+                    throw new MailSendException(Collections.singletonMap(mimeMessages[1], new Exception("timeout")));
+                }
+            }
+        };
+        service = createService(mailSender);
+
+        MailDispatchReport report = service.sendMails("Atenção!", Arrays.asList("a@email.com", "b@email.com"));
+
+        assertThat(report.getSent()).isEqualTo(2);
+        assertThat(report.getFailedIndexes()).isEmpty();
+        assertThat(report.getBatches().get(0).getAttempts()).isEqualTo(2);
+        assertThat(attempts).containsExactly(2, 1);
+    }
+
+    @Test
+    @DisplayName("Deve reportar os destinatários que falharam após esgotar as tentativas.")
+    public void reportFailedRecipientsTest() {
+        List<Integer> attempts = new ArrayList<>();
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl() {
+            @Override
+            protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) {
+                attempts.add(mimeMessages.length);
+                throw new MailSendException("connection refused");
+            }
+        };
+        service = createService(mailSender);
+
+        MailDispatchReport report = service.sendMails("Atenção!", Arrays.asList("a@email.com"));
+
+        assertThat(report.getSent()).isZero();
+        assertThat(report.getFailedRecipients()).containsExactly("a@email.com");
+        assertThat(report.getFailedIndexes()).containsExactly(0);
+        assertThat(attempts).hasSize(3);
+    }
+
+    @Test
+    @DisplayName("Deve reportar a posição na lista de cada email que falhou, mesmo em lotes seguintes.")
+    public void reportFailedIndexesAcrossBatchesTest() {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl() {
+            @Override
+            protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) {
+                if (mimeMessages.length == 1) {
+                    throw new MailSendException("connection refused");
+                }
+            }
+        };
+        service = createService(mailSender);
+
+        MailDispatchReport report = service.sendMails("Atenção!",
+                Arrays.asList("a@email.com", "b@email.com", "c@email.com", "a@email.com"));
+
+        assertThat(report.getSent()).isEqualTo(3);
+        assertThat(report.getFailedIndexes()).containsExactly(3);
+        assertThat(report.getFailedRecipients()).containsExactly("a@email.com");
+    }
+
+    private EmailServiceImpl createService(JavaMailSender mailSender) {
+        EmailServiceImpl emailService = new EmailServiceImpl(mailSender);
+        ReflectionTestUtils.setField(emailService, "remetent", "mail@library-api.com");
+        ReflectionTestUtils.setField(emailService, "batchSize", 3);
+        ReflectionTestUtils.setField(emailService, "workers", 2);
+        ReflectionTestUtils.setField(emailService, "ratePerSecond", 0);
+        ReflectionTestUtils.setField(emailService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(emailService, "backoffMillis", 1);
+        emailService.start();
+        return emailService;
+    }
+}
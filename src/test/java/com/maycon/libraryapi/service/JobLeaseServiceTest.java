@@ -0,0 +1,124 @@
+package com.maycon.libraryapi.service;
+
+import com.maycon.libraryapi.api.model.repository.JobLeaseRepository;
+import com.maycon.libraryapi.api.service.JobLeaseService;
+import com.maycon.libraryapi.api.service.impl.JobLeaseServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class JobLeaseServiceTest {
+
+    private static final int NODES = 4;
+    private static final long LEASE_MILLIS = 60000;
+
+    @Autowired
+    JobLeaseRepository repository;
+
+    @AfterEach
+    public void tearDown() {
+        repository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve permitir que apenas um entre vários nós concorrentes obtenha o lease.")
+    public void onlyOneNodeAcquiresTest() throws Exception {
+        List<JobLeaseService> nodes = nodes(NODES);
+        ExecutorService executor = Executors.newFixedThreadPool(NODES);
+        CountDownLatch start = new CountDownLatch(1);
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (JobLeaseService node : nodes) {
+                Callable<Boolean> acquire = () -> {
+                    start.await();
+                    return node.tryAcquire("job", now);
+                };
+                results.add(executor.submit(acquire));
+            }
+            start.countDown();
+
+            int acquired = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(10, TimeUnit.SECONDS)) {
+                    acquired++;
+                }
+            }
+            assertThat(acquired).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve renovar o lease para o nó que já o detém.")
+    public void ownerRenewsLeaseTest() {
+        List<JobLeaseService> nodes = nodes(2);
+        LocalDateTime now = LocalDateTime.now();
+
+        assertThat(nodes.get(0).tryAcquire("job", now)).isTrue();
+        assertThat(nodes.get(0).tryAcquire("job", now.plusSeconds(30))).isTrue();
+        assertThat(nodes.get(1).tryAcquire("job", now.plusSeconds(70))).isFalse();
+        assertThat(repository.findById("job").get().getOwner()).isEqualTo("node-0");
+    }
+
+    @Test
+    @DisplayName("Deve passar o lease para outro nó quando o dono morrer e o lease expirar.")
+    public void takeOverExpiredLeaseTest() {
+        List<JobLeaseService> nodes = nodes(2);
+        LocalDateTime now = LocalDateTime.now();
+
+        assertThat(nodes.get(0).tryAcquire("job", now)).isTrue();
+        assertThat(nodes.get(1).tryAcquire("job", now.plusSeconds(59))).isFalse();
+        assertThat(nodes.get(1).tryAcquire("job", now.plusSeconds(61))).isTrue();
+        assertThat(repository.findById("job").get().getOwner()).isEqualTo("node-1");
+    }
+
+    @Test
+    @DisplayName("Deve liberar o lease para outro nó ao fim da execução.")
+    public void releaseLeaseTest() {
+        List<JobLeaseService> nodes = nodes(2);
+
+        assertThat(nodes.get(0).tryAcquire("job")).isTrue();
+        nodes.get(1).release("job");
+        assertThat(nodes.get(1).tryAcquire("job")).isFalse();
+
+        nodes.get(0).release("job");
+        assertThat(nodes.get(1).tryAcquire("job")).isTrue();
+    }
+
+    private List<JobLeaseService> nodes(int count) {
+        List<JobLeaseService> nodes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            JobLeaseServiceImpl node = new JobLeaseServiceImpl(repository);
+            ReflectionTestUtils.setField(node, "nodeId", "node-" + i);
+            ReflectionTestUtils.setField(node, "leaseMillis", LEASE_MILLIS);
+            nodes.add(node);
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,134 @@
+package com.maycon.libraryapi.service;
+
+import com.maycon.libraryapi.api.model.entity.LateLoanNotification;
+import com.maycon.libraryapi.api.model.projection.LateLoan;
+import com.maycon.libraryapi.api.model.repository.LateLoanNotificationRepository;
+import com.maycon.libraryapi.api.model.repository.LoanRepository;
+import com.maycon.libraryapi.api.service.EmailService;
+import com.maycon.libraryapi.api.service.LateLoanNotificationService;
+import com.maycon.libraryapi.api.service.MailDispatchReport;
+import com.maycon.libraryapi.api.service.impl.LateLoanNotificationServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class LateLoanNotificationServiceTest {
+
+    @MockBean
+    private LateLoanNotificationRepository repository;
+
+    @MockBean
+    private LoanRepository loanRepository;
+
+    @MockBean
+    private EmailService emailService;
+
+    LateLoanNotificationService service;
+
+    @BeforeEach
+    public void setUp() {
+        this.service = new LateLoanNotificationServiceImpl(repository, loanRepository, emailService);
+    }
+
+    @Test
+    @DisplayName("Deve enfileirar somente as notificações que ainda não existem para a data.")
+    @SuppressWarnings("unchecked")
+    public void enqueueOnlyNewNotificationsTest() {
+        LocalDate date = LocalDate.of(2020, 11, 10);
+        List<LateLoan> lateLoans = Arrays.asList(lateLoan(1l), lateLoan(2l));
+        when(repository.findExistingKeys(Mockito.anyCollection()))
+                .thenReturn(Collections.singleton("1:2020-11-10"));
+
+        int enqueued = service.enqueue(lateLoans, date);
+
+        ArgumentCaptor<List<LateLoanNotification>> captor = ArgumentCaptor.forClass(List.class);
+        verify(repository).saveAll(captor.capture());
+        assertThat(enqueued).isEqualTo(1);
+        assertThat(captor.getValue()).hasSize(1);
+        assertThat(captor.getValue().get(0).getIdempotencyKey()).isEqualTo("2:2020-11-10");
+        assertThat(captor.getValue().get(0).getCustomerEmail()).isEqualTo("customer2@email.com");
+        verify(loanRepository).markOverdueNotified(eq(Arrays.asList(1l, 2l)), any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("Deve marcar como enviadas as notificações despachadas e registrar as falhas.")
+    public void dispatchPendingTest() {
+        LateLoanNotification sent = notification(1l, "customer1@email.com");
+        LateLoanNotification failed = notification(2l, "customer2@email.com");
+        when(repository.findPending(5, PageRequest.of(0, 10))).thenReturn(Arrays.asList(sent, failed));
+        when(emailService.sendMails("Atenção!", Arrays.asList("customer1@email.com", "customer2@email.com")))
+                .thenReturn(MailDispatchReport.builder()
+                        .sent(1)
+                        .failed(1)
+                        .failedRecipients(Collections.singletonList("customer2@email.com"))
+                        .failedIndexes(Collections.singletonList(1))
+                        .build());
+
+        int dispatched = service.dispatchPending("Atenção!", 10);
+
+        assertThat(dispatched).isEqualTo(1);
+        verify(repository).markSent(eq(Collections.singletonList(1l)), any(LocalDateTime.class));
+        verify(repository).markFailed(Collections.singletonList(2l));
+    }
+
+    @Test
+    @DisplayName("Deve registrar a falha somente na notificação que falhou quando duas forem para o mesmo email.")
+    public void dispatchPendingSameRecipientTest() {
+        LateLoanNotification sent = notification(1l, "customer@email.com");
+        LateLoanNotification failed = notification(2l, "customer@email.com");
+        when(repository.findPending(5, PageRequest.of(0, 10))).thenReturn(Arrays.asList(sent, failed));
+        when(emailService.sendMails("Atenção!", Arrays.asList("customer@email.com", "customer@email.com")))
+                .thenReturn(MailDispatchReport.builder()
+                        .sent(1)
+                        .failed(1)
+                        .failedRecipients(Collections.singletonList("customer@email.com"))
+                        .failedIndexes(Collections.singletonList(1))
+                        .build());
+
+        int dispatched = service.dispatchPending("Atenção!", 10);
+
+        assertThat(dispatched).isEqualTo(1);
+        verify(repository).markSent(eq(Collections.singletonList(1l)), any(LocalDateTime.class));
+        verify(repository).markFailed(Collections.singletonList(2l));
+    }
+
+    @Test
+    @DisplayName("Não deve enviar emails quando não houver notificações pendentes.")
+    public void dispatchEmptyOutboxTest() {
+        when(repository.findPending(5, PageRequest.of(0, 10))).thenReturn(Collections.emptyList());
+
+        int dispatched = service.dispatchPending("Atenção!", 10);
+
+        assertThat(dispatched).isZero();
+        verify(emailService, never()).sendMails(anyString(), anyList());
+    }
+
+    private LateLoan lateLoan(Long id) {
+        LateLoan lateLoan = mock(LateLoan.class);
+        when(lateLoan.getId()).thenReturn(id);
+        when(lateLoan.getCustomerEmail()).thenReturn("customer" + id + "@email.com");
+        return lateLoan;
+    }
+
+    private LateLoanNotification notification(Long id, String email) {
+        return LateLoanNotification.builder().id(id).loanId(id).customerEmail(email).build();
+    }
+}
@@ -0,0 +1,157 @@
+package com.maycon.libraryapi.service;
+
+import com.maycon.libraryapi.api.model.entity.Book;
+import com.maycon.libraryapi.api.model.entity.Loan;
+import com.maycon.libraryapi.api.model.projection.BookAvailability;
+import com.maycon.libraryapi.api.model.repository.BookRepository;
+import com.maycon.libraryapi.api.model.repository.LoanRepository;
+import com.maycon.libraryapi.api.service.LoanService;
+import com.maycon.libraryapi.api.service.impl.LoanServiceImpl;
+import com.maycon.libraryapi.exception.BusinessException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.maycon.libraryapi.model.repository.BookRepositoryTest.createNewBook;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Import(LoanServiceImpl.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class LoanServiceConcurrencyTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    LoanService service;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @AfterEach
+    public void tearDown() {
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Somente um empréstimo deve ser criado quando vários pedidos concorrentes usam o mesmo livro.")
+    public void concurrentLoansOfSameBookTest() throws Exception {
+        Book book = bookRepository.save(createNewBook("123"));
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            String customer = "Customer " + i;
+            Callable<Boolean> loanBook = () -> {
+                start.await();
+                try {
+                    service.save(Loan.builder().book(book).customer(customer).loanDate(LocalDate.now()).build());
+                    return true;
+                } catch (BusinessException e) {
+                    return false;
+                }
+            };
+            results.add(executor.submit(loanBook));
+        }
+        start.countDown();
+
+        int created = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(10, TimeUnit.SECONDS)) {
+                created++;
+            }
+        }
+        executor.shutdown();
+
+        assertThat(created).isEqualTo(1);
+        assertThat(loanRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Empréstimos concorrentes de um livro sem estatísticas devem criar a linha uma única vez.")
+    public void concurrentFirstLoansStatsTest() throws Exception {
+        Book book = bookRepository.save(createNewBook("123"));
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        List<Future<Loan>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            String customer = "Customer " + i;
+            Callable<Loan> loanBook = () -> {
+                start.await();
+                return service.save(Loan.builder().book(book).customer(customer).loanDate(LocalDate.now())
+                        .returned(true).build());
+            };
+            results.add(executor.submit(loanBook));
+        }
+        start.countDown();
+
+        for (Future<Loan> result : results) {
+            assertThat(result.get(10, TimeUnit.SECONDS).getId()).isNotNull();
+        }
+        executor.shutdown();
+
+        assertThat(service.getAvailability(book.getId()).get().getTotalLoans()).isEqualTo(THREADS);
+    }
+
+    @Test
+    @DisplayName("Deve permitir um novo empréstimo depois que o anterior for devolvido.")
+    public void loanAfterReturnTest() {
+        Book book = bookRepository.save(createNewBook("123"));
+        Loan loan = service.save(Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build());
+
+        loan.setReturned(true);
+        service.update(loan);
+        Loan secondLoan = service.save(Loan.builder().book(book).customer("Ciclano").loanDate(LocalDate.now()).build());
+
+        assertThat(secondLoan.getId()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Deve manter as estatísticas do livro a cada empréstimo e devolução.")
+    public void bookLoanStatsTest() {
+        Book book = bookRepository.save(createNewBook("123"));
+        Loan loan = service.save(Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now().minusDays(1)).build());
+
+        BookAvailability loaned = service.getAvailability(book.getId()).get();
+        assertThat(loaned.getOpenLoan()).isTrue();
+        assertThat(loaned.getTotalLoans()).isEqualTo(1);
+
+        loan.setReturned(true);
+        service.update(loan);
+        BookAvailability returned = service.getAvailability(book.getId()).get();
+        assertThat(returned.getOpenLoan()).isFalse();
+
+        service.save(Loan.builder().book(book).customer("Ciclano").loanDate(LocalDate.now()).build());
+        BookAvailability loanedAgain = service.getAvailability(book.getId()).get();
+
+        assertThat(loanedAgain.getOpenLoan()).isTrue();
+        assertThat(loanedAgain.getTotalLoans()).isEqualTo(2);
+        assertThat(loanedAgain.getLastLoanDate()).isEqualTo(LocalDate.now());
+    }
+}
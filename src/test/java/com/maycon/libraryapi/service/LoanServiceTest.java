@@ -2,9 +2,13 @@ package com.maycon.libraryapi.service;
 
 import com.maycon.libraryapi.api.DTO.LoanFilterDTO;
 import com.maycon.libraryapi.api.model.entity.Book;
+import com.maycon.libraryapi.api.model.entity.JobWatermark;
 import com.maycon.libraryapi.api.model.entity.Loan;
+import com.maycon.libraryapi.api.model.projection.LateLoan;
 import com.maycon.libraryapi.api.service.LoanService;
 import com.maycon.libraryapi.exception.BusinessException;
+import com.maycon.libraryapi.api.model.repository.BookLoanStatsRepository;
+import com.maycon.libraryapi.api.model.repository.JobWatermarkRepository;
 import com.maycon.libraryapi.api.model.repository.LoanRepository;
 import com.maycon.libraryapi.api.service.impl.LoanServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,13 +17,18 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
@@ -36,9 +45,15 @@ public class LoanServiceTest {
     @MockBean
     private LoanRepository repository;
 
+    @MockBean
+    private BookLoanStatsRepository statsRepository;
+
+    @MockBean
+    private JobWatermarkRepository watermarkRepository;
+
     @BeforeEach
     public void setUp() {
-        this.service = new LoanServiceImpl(repository);
+        this.service = new LoanServiceImpl(repository, statsRepository, watermarkRepository);
     }
 
     LoanService service;
@@ -61,8 +76,6 @@ public class LoanServiceTest {
                 .customer(customer)
                 .book(book).build();
 
-        when(repository.existsByBookAndNotReturned(book)).thenReturn(false);
-
         when(repository.save(savingLoan)).thenReturn(savedLoan);
 
         Loan loan = service.save(savingLoan);
@@ -71,8 +84,44 @@ public class LoanServiceTest {
         assertThat(loan.getBook().getId()).isEqualTo(savedLoan.getBook().getId());
         assertThat(loan.getCustomer()).isEqualTo(savedLoan.getCustomer());
         assertThat(loan.getLoanDate()).isEqualTo(savedLoan.getLoanDate());
+        assertThat(savingLoan.getDueDate()).isEqualTo(LocalDate.now().plusDays(4));
+
+    }
+
+    @Test
+    @DisplayName("Deve atualizar as estatísticas do livro ao emprestar e devolver.")
+    public void updateBookStatsTest() {
+        Book book = Book.builder().id(1l).build();
+        Loan loan = Loan.builder().id(1l).book(book).customer("Fulano").loanDate(LocalDate.now()).build();
+        when(repository.save(loan)).thenReturn(loan);
+        when(statsRepository.recordLoan(1l, loan.getLoanDate())).thenReturn(1);
 
+        service.save(loan);
+        loan.setReturned(true);
+        service.update(loan);
 
+        verify(statsRepository).recordLoan(1l, loan.getLoanDate());
+        verify(statsRepository, Mockito.times(2)).recordOpen(1l);
+        verify(statsRepository).lockBook(1l);
+        verify(statsRepository, Mockito.times(1)).rebuild(1l);
+    }
+
+    @Test
+    @DisplayName("Deve devolver um empréstimo pelo id sem carregá-lo e atualizar as estatísticas do livro.")
+    public void markReturnedTest() {
+        when(repository.markReturned(1l, true)).thenReturn(1);
+        when(repository.markReturned(2l, true)).thenReturn(0);
+
+        boolean returned = service.markReturned(1l, true);
+        boolean missing = service.markReturned(2l, true);
+
+        assertThat(returned).isTrue();
+        assertThat(missing).isFalse();
+        verify(statsRepository, times(2)).recordOpenByLoan(1l);
+        verify(statsRepository).lockBookOfLoan(1l);
+        verify(statsRepository).rebuildByLoan(1l);
+        verify(statsRepository, never()).recordOpenByLoan(2l);
+        verify(repository, never()).findById(Mockito.anyLong());
     }
 
     @Test
@@ -86,15 +135,27 @@ public class LoanServiceTest {
                 .customer(customer)
                 .loanDate(LocalDate.now())
                 .build();
-        when(repository.existsByBookAndNotReturned(book)).thenReturn(true);
+        when(repository.save(savingLoan)).thenThrow(new DataIntegrityViolationException("could not execute statement",
+                new SQLException("Unique index or primary key violation: \"PUBLIC.UX_LOAN_OPEN_BOOK ON PUBLIC.LOAN(OPEN_BOOK_ID)\"")));
 
         Throwable exception = catchThrowable(() -> service.save(savingLoan));
 
         assertThat(exception).isInstanceOf(BusinessException.class)
                 .hasMessage("Book already loaned");
 
-        verify(repository, never()).save(savingLoan);
+    }
+
+    @Test
+    @DisplayName("Deve propagar violações de integridade que não sejam de empréstimo em aberto.")
+    public void otherIntegrityViolationOnSaveTest() {
+        Loan savingLoan = createLoan();
+        DataIntegrityViolationException violation = new DataIntegrityViolationException("could not execute statement",
+                new SQLException("Referential integrity constraint violation: \"FK_LOAN_BOOK\""));
+        when(repository.save(savingLoan)).thenThrow(violation);
 
+        Throwable exception = catchThrowable(() -> service.save(savingLoan));
+
+        assertThat(exception).isSameAs(violation);
     }
 
     @Test
@@ -135,6 +196,7 @@ public class LoanServiceTest {
 
     @Test
     @DisplayName("Deve filtrar empréstimos pelas propriedades")
+    @SuppressWarnings("unchecked")
     public void findLoanTest() {
         LoanFilterDTO loanFilterDTO = LoanFilterDTO.builder().customer("Fulano").isbn("321").build();
 
@@ -144,12 +206,8 @@ public class LoanServiceTest {
         PageRequest pageRequest = PageRequest.of(0, 10);
         List<Loan> lista = Arrays.asList(loan);
 
-        Page<Loan> page = new PageImpl<Loan>(lista, pageRequest, lista.size());
-        when(repository.findByBookIsbnOrCustomer(
-                Mockito.anyString(),
-                Mockito.anyString(),
-                Mockito.any(PageRequest.class)))
-                .thenReturn(page);
+        when(repository.findSlice(Mockito.any(Specification.class), Mockito.any(PageRequest.class)))
+                .thenReturn(new SliceImpl<>(lista, pageRequest, false));
 
         Page<Loan> result = service.find(loanFilterDTO, pageRequest);
 
@@ -159,6 +217,89 @@ public class LoanServiceTest {
         assertThat(result.getPageable().getPageSize()).isEqualTo(10);
     }
 
+    @Test
+    @DisplayName("Deve paginar a busca por isbn e customer unindo as duas consultas até o fim da página.")
+    @SuppressWarnings("unchecked")
+    public void findPageByIsbnAndCustomerTest() {
+        LoanFilterDTO filter = LoanFilterDTO.builder().customer("Fulano").isbn("321").build();
+        List<Loan> byIsbn = Arrays.asList(loan(1l), loan(3l), loan(5l), loan(6l));
+        List<Loan> byCustomer = Arrays.asList(loan(2l), loan(3l), loan(4l));
+        PageRequest window = PageRequest.of(0, 5, Sort.by(Sort.Direction.ASC, "id"));
+        when(repository.findSlice(Mockito.any(Specification.class), Mockito.eq(window)))
+                .thenReturn(new SliceImpl<>(byIsbn), new SliceImpl<>(byCustomer));
+
+        Slice<Loan> result = service.findSlice(filter, PageRequest.of(1, 2));
+
+        assertThat(result.getContent()).extracting(Loan::getId).containsExactly(3l, 4l);
+        assertThat(result.hasNext()).isTrue();
+        verify(repository, times(2)).findSlice(Mockito.any(Specification.class), Mockito.eq(window));
+    }
+
+    @Test
+    @DisplayName("Deve buscar pelo isbn e pelo customer em consultas separadas e unir os resultados pelo id.")
+    @SuppressWarnings("unchecked")
+    public void findAfterByIsbnAndCustomerTest() {
+        LoanFilterDTO filter = LoanFilterDTO.builder().customer("Fulano").isbn("321").build();
+        Loan first = Loan.builder().id(1l).build();
+        Loan second = Loan.builder().id(2l).build();
+        Loan third = Loan.builder().id(3l).build();
+        when(repository.findAfter(Mockito.any(Specification.class), Mockito.eq(0L), Mockito.eq(3)))
+                .thenReturn(Arrays.asList(first, third), Arrays.asList(second, third));
+
+        Slice<Loan> result = service.findAfter(filter, null, 2);
+
+        assertThat(result.getContent()).containsExactly(first, second);
+        assertThat(result.hasNext()).isTrue();
+        verify(repository, times(2)).findAfter(Mockito.any(Specification.class), Mockito.eq(0L), Mockito.eq(3));
+    }
+
+    @Test
+    @DisplayName("Deve obter um bloco de empréstimos que venceram dentro da janela.")
+    public void getNewlyOverdueLoansTest() {
+        LocalDate after = LocalDate.now().minusDays(1);
+        LocalDate until = LocalDate.now();
+        LateLoan lateLoan = Mockito.mock(LateLoan.class);
+        when(repository.findNewlyOverdue(after, until, 1, 4, PageRequest.of(0, 50))).thenReturn(Arrays.asList(lateLoan));
+
+        List<LateLoan> result = service.getNewlyOverdueLoans(after, until, 1, 4, 50);
+
+        assertThat(result).containsExactly(lateLoan);
+    }
+
+    @Test
+    @DisplayName("Deve usar o dia atual quando não houver marca d'água de atrasos.")
+    public void defaultOverdueWatermarkTest() {
+        when(watermarkRepository.findById("overdue-loans")).thenReturn(Optional.empty());
+
+        assertThat(service.getOverdueWatermark(0, 1)).isEqualTo(LocalDate.now());
+    }
+
+    @Test
+    @DisplayName("Deve partir da marca d'água mais antiga quando a partição ainda não tiver a sua.")
+    public void oldestOverdueWatermarkForNewShardTest() {
+        LocalDate oldest = LocalDate.now().minusDays(5);
+        when(watermarkRepository.findById("overdue-loans-1/2")).thenReturn(Optional.empty());
+        when(watermarkRepository.findOldestWatermark("overdue-loans")).thenReturn(Optional.of(oldest));
+
+        assertThat(service.getOverdueWatermark(1, 2)).isEqualTo(oldest);
+    }
+
+    @Test
+    @DisplayName("Deve gravar a nova marca d'água de atrasos de cada partição.")
+    public void advanceOverdueWatermarkTest() {
+        LocalDate today = LocalDate.now();
+
+        service.advanceOverdueWatermark(0, 1, today);
+        service.advanceOverdueWatermark(2, 4, today);
+
+        verify(watermarkRepository).save(JobWatermark.builder().name("overdue-loans").watermark(today).build());
+        verify(watermarkRepository).save(JobWatermark.builder().name("overdue-loans-2/4").watermark(today).build());
+    }
+
+    private static Loan loan(Long id) {
+        return Loan.builder().id(id).build();
+    }
+
     public static Loan createLoan() {
         Book book = Book.builder().id(1l).build();
         String customer = "Fulano";
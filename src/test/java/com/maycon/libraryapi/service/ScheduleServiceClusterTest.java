@@ -0,0 +1,195 @@
+package com.maycon.libraryapi.service;
+
+import com.maycon.libraryapi.api.model.entity.Book;
+import com.maycon.libraryapi.api.model.entity.JobWatermark;
+import com.maycon.libraryapi.api.model.entity.Loan;
+import com.maycon.libraryapi.api.model.projection.LateLoan;
+import com.maycon.libraryapi.api.model.repository.BookLoanStatsRepository;
+import com.maycon.libraryapi.api.model.repository.BookRepository;
+import com.maycon.libraryapi.api.model.repository.JobLeaseRepository;
+import com.maycon.libraryapi.api.model.repository.JobWatermarkRepository;
+import com.maycon.libraryapi.api.model.repository.LoanRepository;
+import com.maycon.libraryapi.api.service.BookService;
+import com.maycon.libraryapi.api.service.LateLoanNotificationService;
+import com.maycon.libraryapi.api.service.LateLoansReport;
+import com.maycon.libraryapi.api.service.LoanService;
+import com.maycon.libraryapi.api.service.ScheduleService;
+import com.maycon.libraryapi.api.service.impl.JobLeaseServiceImpl;
+import com.maycon.libraryapi.api.service.impl.LoanServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ScheduleServiceClusterTest {
+
+    private static final int SHARDS = 6;
+    private static final long LEASE_MILLIS = 60000;
+
+    @Autowired
+    JobLeaseRepository repository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    BookLoanStatsRepository statsRepository;
+
+    @Autowired
+    JobWatermarkRepository watermarkRepository;
+
+    @MockBean
+    private LoanService loanService;
+
+    @MockBean
+    private LateLoanNotificationService notificationService;
+
+    @MockBean
+    private BookService bookService;
+
+    private List<JobWatermark> watermarks;
+
+    @BeforeEach
+    public void setUp() {
+        watermarks = watermarkRepository.findAll();
+        when(loanService.getOverdueWatermark(anyInt(), eq(SHARDS))).thenReturn(LocalDate.now().minusDays(1));
+        when(loanService.getNewlyOverdueLoans(any(LocalDate.class), any(LocalDate.class), anyInt(), eq(SHARDS), anyInt()))
+                .thenReturn(Collections.emptyList());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        repository.deleteAll();
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+        watermarkRepository.deleteAll();
+        watermarkRepository.saveAll(watermarks);
+    }
+
+    @Test
+    @DisplayName("Deve dividir as partições igualmente entre os nós vivos, sem que dois nós varram a mesma.")
+    public void spreadShardsAcrossNodesTest() {
+        List<ScheduleService> nodes = nodes(3);
+        LocalDateTime now = LocalDateTime.now();
+
+        List<List<Integer>> first = tick(nodes, now);
+        assertThat(first.stream().flatMap(List::stream)).doesNotHaveDuplicates();
+
+        List<List<Integer>> second = tick(nodes, now.plusSeconds(30));
+        assertThat(second).allSatisfy(shards -> assertThat(shards).hasSize(2));
+        assertThat(second.stream().flatMap(List::stream).collect(Collectors.toList()))
+                .containsExactlyInAnyOrder(0, 1, 2, 3, 4, 5);
+    }
+
+    @Test
+    @DisplayName("Deve manter as partições no mesmo nó entre execuções.")
+    public void keepShardsBetweenTicksTest() {
+        List<ScheduleService> nodes = nodes(3);
+        LocalDateTime now = LocalDateTime.now();
+        tick(nodes, now);
+
+        List<List<Integer>> settled = tick(nodes, now.plusSeconds(30));
+        List<List<Integer>> next = tick(nodes, now.plusSeconds(60));
+
+        assertThat(next).isEqualTo(settled);
+    }
+
+    @Test
+    @DisplayName("Deve redistribuir as partições de um nó morto entre os sobreviventes após o lease expirar.")
+    public void takeOverShardsOfDeadNodeTest() {
+        List<ScheduleService> nodes = nodes(3);
+        LocalDateTime now = LocalDateTime.now();
+        tick(nodes, now);
+        List<List<Integer>> settled = tick(nodes, now.plusSeconds(30));
+
+        List<ScheduleService> survivors = nodes.subList(1, 3);
+        List<List<Integer>> beforeExpiry = tick(survivors, now.plusSeconds(60));
+        assertThat(beforeExpiry).isEqualTo(settled.subList(1, 3));
+
+        List<List<Integer>> afterExpiry = tick(survivors, now.plusSeconds(91));
+        assertThat(afterExpiry).allSatisfy(shards -> assertThat(shards).hasSize(3));
+        assertThat(afterExpiry.stream().flatMap(List::stream).collect(Collectors.toList()))
+                .containsExactlyInAnyOrder(0, 1, 2, 3, 4, 5);
+    }
+
+    @Test
+    @DisplayName("Deve notificar os empréstimos vencidos desde a última varredura ao mudar o número de partições.")
+    @SuppressWarnings("unchecked")
+    public void changeShardCountTest() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate today = now.toLocalDate();
+        Book book = bookRepository.save(Book.builder().title("Aventuras").author("Fulano").isbn("001").build());
+        Loan loan = loanRepository.save(Loan.builder().book(book).customer("Fulano").customerEmail("fulano@email.com")
+                .loanDate(today.minusDays(6)).dueDate(today.minusDays(2)).build());
+        watermarkRepository.save(JobWatermark.builder().name("overdue-loans").watermark(today.minusDays(5)).build());
+
+        LoanService loans = new LoanServiceImpl(loanRepository, statsRepository, watermarkRepository);
+        List<ScheduleService> nodes = nodes(1, 2, loans);
+        List<LateLoansReport> reports = nodes.get(0).sweepOverdueShards(now);
+
+        ArgumentCaptor<List<LateLoan>> enqueued = ArgumentCaptor.forClass(List.class);
+        verify(notificationService).enqueue(enqueued.capture(), eq(today));
+        assertThat(enqueued.getValue()).extracting(LateLoan::getId).containsExactly(loan.getId());
+        assertThat(reports).extracting(LateLoansReport::getWatermark).containsOnly(today);
+        assertThat(watermarkRepository.findById("overdue-loans-0/2")).isPresent();
+        assertThat(watermarkRepository.findById("overdue-loans-1/2")).isPresent();
+    }
+
+    private List<List<Integer>> tick(List<ScheduleService> nodes, LocalDateTime now) {
+        List<List<Integer>> shards = new ArrayList<>();
+        for (ScheduleService node : nodes) {
+            shards.add(node.sweepOverdueShards(now).stream()
+                    .map(LateLoansReport::getShard)
+                    .sorted()
+                    .collect(Collectors.toList()));
+        }
+        return shards;
+    }
+
+    private List<ScheduleService> nodes(int count) {
+        return nodes(count, SHARDS, loanService);
+    }
+
+    private List<ScheduleService> nodes(int count, int shards, LoanService loanService) {
+        List<ScheduleService> nodes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            JobLeaseServiceImpl leaseService = new JobLeaseServiceImpl(repository);
+            ReflectionTestUtils.setField(leaseService, "nodeId", "node-" + i);
+            ReflectionTestUtils.setField(leaseService, "leaseMillis", LEASE_MILLIS);
+
+            ScheduleService node = new ScheduleService(loanService, notificationService, bookService, leaseService);
+            ReflectionTestUtils.setField(node, "chunkSize", 2);
+            ReflectionTestUtils.setField(node, "overdueMaxPerRun", 1000);
+            ReflectionTestUtils.setField(node, "overdueShards", shards);
+            nodes.add(node);
+        }
+        return nodes;
+    }
+}
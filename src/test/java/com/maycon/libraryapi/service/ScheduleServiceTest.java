@@ -0,0 +1,195 @@
+package com.maycon.libraryapi.service;
+
+import com.maycon.libraryapi.api.model.projection.LateLoan;
+import com.maycon.libraryapi.api.service.BookService;
+import com.maycon.libraryapi.api.service.JobLeaseService;
+import com.maycon.libraryapi.api.service.LateLoanNotificationService;
+import com.maycon.libraryapi.api.service.LateLoansReport;
+import com.maycon.libraryapi.api.service.LoanService;
+import com.maycon.libraryapi.api.service.ScheduleService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class ScheduleServiceTest {
+
+    @MockBean
+    private LoanService loanService;
+
+    @MockBean
+    private LateLoanNotificationService notificationService;
+
+    @MockBean
+    private BookService bookService;
+
+    @MockBean
+    private JobLeaseService leaseService;
+
+    ScheduleService service;
+
+    @BeforeEach
+    public void setUp() {
+        this.service = new ScheduleService(loanService, notificationService, bookService, leaseService);
+        ReflectionTestUtils.setField(service, "message", "Atenção!");
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+        ReflectionTestUtils.setField(service, "maxPerRun", 5);
+        ReflectionTestUtils.setField(service, "overdueMaxPerRun", 1000);
+        when(leaseService.getNodeId()).thenReturn("node-a");
+        when(leaseService.tryAcquire(anyString())).thenReturn(true);
+    }
+
+    @Test
+    @DisplayName("Deve enfileirar em blocos os empréstimos vencidos desde a última execução e avançar a marca d'água.")
+    public void sweepOverdueLoansInChunksTest() {
+        LocalDate today = LocalDate.now();
+        LocalDate watermark = today.minusDays(1);
+        List<LateLoan> firstChunk = Arrays.asList(lateLoan(1l), lateLoan(2l));
+        List<LateLoan> lastChunk = Arrays.asList(lateLoan(5l));
+        when(loanService.getOverdueWatermark(0, 1)).thenReturn(watermark);
+        when(loanService.getNewlyOverdueLoans(watermark, today, 0, 1, 2)).thenReturn(firstChunk, lastChunk);
+        when(notificationService.enqueue(firstChunk, today)).thenReturn(2);
+        when(notificationService.enqueue(lastChunk, today)).thenReturn(1);
+
+        LateLoansReport report = service.sweepOverdueLoans(today, 0, 1);
+
+        assertThat(report.getLoans()).isEqualTo(3);
+        assertThat(report.getEnqueued()).isEqualTo(3);
+        assertThat(report.getChunks()).isEqualTo(2);
+        assertThat(report.getWatermark()).isEqualTo(today);
+        verify(notificationService).enqueue(firstChunk, today);
+        verify(notificationService).enqueue(lastChunk, today);
+        verify(loanService).advanceOverdueWatermark(0, 1, today);
+    }
+
+    @Test
+    @DisplayName("Não deve avançar a marca d'água quando o limite por execução for atingido.")
+    public void keepWatermarkWhenCappedTest() {
+        LocalDate today = LocalDate.now();
+        LocalDate watermark = today.minusDays(1);
+        ReflectionTestUtils.setField(service, "overdueMaxPerRun", 4);
+        when(loanService.getOverdueWatermark(0, 1)).thenReturn(watermark);
+        when(loanService.getNewlyOverdueLoans(watermark, today, 0, 1, 2))
+                .thenReturn(Arrays.asList(lateLoan(1l), lateLoan(2l)), Arrays.asList(lateLoan(3l), lateLoan(4l)));
+
+        LateLoansReport report = service.sweepOverdueLoans(today, 0, 1);
+
+        assertThat(report.getLoans()).isEqualTo(4);
+        assertThat(report.getWatermark()).isEqualTo(watermark);
+        verify(loanService, times(2)).getNewlyOverdueLoans(watermark, today, 0, 1, 2);
+        verify(loanService, never()).advanceOverdueWatermark(anyInt(), anyInt(), any(LocalDate.class));
+    }
+
+    @Test
+    @DisplayName("Não deve enfileirar nada quando nenhum empréstimo vencer.")
+    public void noLateLoansTest() {
+        LocalDate today = LocalDate.now();
+        when(loanService.getOverdueWatermark(0, 1)).thenReturn(today.minusDays(1));
+        when(loanService.getNewlyOverdueLoans(today.minusDays(1), today, 0, 1, 2)).thenReturn(Collections.emptyList());
+
+        LateLoansReport report = service.sweepOverdueLoans(today, 0, 1);
+
+        assertThat(report.getLoans()).isZero();
+        verify(notificationService, never()).enqueue(anyList(), any(LocalDate.class));
+        verify(loanService).advanceOverdueWatermark(0, 1, today);
+    }
+
+    @Test
+    @DisplayName("Deve manter as partições até a sua cota e devolver as excedentes.")
+    public void keepShardsUpToShareTest() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate today = now.toLocalDate();
+        ReflectionTestUtils.setField(service, "overdueShards", 4);
+        when(leaseService.tryAcquire(anyString(), eq(now))).thenReturn(true);
+        when(leaseService.countLive("overdue-loans/node-", now)).thenReturn(2l);
+        when(leaseService.getHeld("overdue-loans/shard-", now)).thenReturn(Arrays.asList(
+                "overdue-loans/shard-0-of-4", "overdue-loans/shard-1-of-4", "overdue-loans/shard-2-of-4"));
+        when(loanService.getOverdueWatermark(anyInt(), eq(4))).thenReturn(today.minusDays(1));
+        when(loanService.getNewlyOverdueLoans(any(LocalDate.class), eq(today), anyInt(), eq(4), eq(2)))
+                .thenReturn(Collections.emptyList());
+
+        List<LateLoansReport> reports = service.sweepOverdueShards(now);
+
+        assertThat(reports).extracting(LateLoansReport::getShard).containsExactly(0, 1);
+        verify(leaseService).tryAcquire("overdue-loans/node-node-a", now);
+        verify(leaseService).release("overdue-loans/shard-2-of-4");
+        verify(leaseService, never()).tryAcquire("overdue-loans/shard-3-of-4", now);
+    }
+
+    @Test
+    @DisplayName("Deve reivindicar partições livres até a cota, sem esperar pelas que outro nó detém.")
+    public void claimFreeShardsUpToShareTest() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate today = now.toLocalDate();
+        ReflectionTestUtils.setField(service, "overdueShards", 4);
+        when(leaseService.tryAcquire(anyString(), eq(now))).thenReturn(true);
+        when(leaseService.tryAcquire("overdue-loans/shard-2-of-4", now)).thenReturn(false);
+        when(leaseService.countLive("overdue-loans/node-", now)).thenReturn(2l);
+        when(leaseService.getHeld("overdue-loans/shard-", now)).thenReturn(Collections.emptyList());
+        when(loanService.getOverdueWatermark(anyInt(), eq(4))).thenReturn(today.minusDays(1));
+        when(loanService.getNewlyOverdueLoans(any(LocalDate.class), eq(today), anyInt(), eq(4), eq(2)))
+                .thenReturn(Collections.emptyList());
+
+        List<LateLoansReport> reports = service.sweepOverdueShards(now);
+
+        assertThat(reports).extracting(LateLoansReport::getShard).containsExactly(3, 0);
+        verify(leaseService, never()).release(anyString());
+    }
+
+    @Test
+    @DisplayName("Não deve despachar notificações quando outro nó detém o lease.")
+    public void skipDispatchWithoutLeaseTest() {
+        when(leaseService.tryAcquire("late-loan-dispatch")).thenReturn(false);
+
+        service.dispatchLateLoanNotifications();
+
+        verify(notificationService, never()).dispatchPending(anyString(), anyInt());
+        verify(leaseService, never()).release(anyString());
+    }
+
+    @Test
+    @DisplayName("Deve despachar notificações pendentes respeitando o limite por execução.")
+    public void dispatchPendingNotificationsTest() {
+        when(notificationService.dispatchPending("Atenção!", 2)).thenReturn(2);
+        when(notificationService.dispatchPending("Atenção!", 1)).thenReturn(1);
+
+        int sent = service.dispatchPendingNotifications();
+
+        assertThat(sent).isEqualTo(5);
+        verify(notificationService, times(2)).dispatchPending("Atenção!", 2);
+        verify(notificationService).dispatchPending("Atenção!", 1);
+    }
+
+    @Test
+    @DisplayName("Deve parar de despachar quando a fila esvaziar.")
+    public void stopDispatchWhenOutboxIsEmptyTest() {
+        when(notificationService.dispatchPending("Atenção!", 2)).thenReturn(1);
+
+        int sent = service.dispatchPendingNotifications();
+
+        assertThat(sent).isEqualTo(1);
+        verify(notificationService, times(1)).dispatchPending(anyString(), anyInt());
+    }
+
+    private LateLoan lateLoan(Long id) {
+        LateLoan lateLoan = mock(LateLoan.class);
+        when(lateLoan.getId()).thenReturn(id);
+        when(lateLoan.getCustomerEmail()).thenReturn("customer" + id + "@email.com");
+        return lateLoan;
+    }
+}